@@ -0,0 +1,74 @@
+package be.uclouvain.ingi.aia.ddo4j.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import be.uclouvain.ingi.aia.ddo4j.core.CompilationInput;
+import be.uclouvain.ingi.aia.ddo4j.core.CompilationType;
+import be.uclouvain.ingi.aia.ddo4j.core.DecisionPath;
+import be.uclouvain.ingi.aia.ddo4j.core.SubProblem;
+import be.uclouvain.ingi.aia.ddo4j.implem.heuristics.DefaultVariableHeuristic;
+import be.uclouvain.ingi.aia.ddo4j.implem.mdd.LinkedDecisionDiagram;
+
+/**
+ * Measures the time it takes to compile the decision diagram of a whole knapsack
+ * instance. The diagram is reused from one compilation to the next (as the solver
+ * does), hence this measures the steady state of the arenas.
+ *
+ * # Note:
+ * The width is ignored by the exact compilations.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class CompileBenchmark {
+    /** The number of items of the instance */
+    @Param({"25", "50"})
+    public int nbItems;
+    /** The maximum width of the layers */
+    @Param({"10", "100", "1000"})
+    public int width;
+    /** The kind of compilation */
+    @Param({"Exact", "Restricted", "Relaxed"})
+    public CompilationType type;
+
+    /** The diagram being compiled */
+    private LinkedDecisionDiagram<GeneratedKnapsack.State> mdd;
+    /** The parameters of the compilation */
+    private CompilationInput<GeneratedKnapsack.State> input;
+
+    @Setup
+    public void setup() {
+        final GeneratedKnapsack problem = new GeneratedKnapsack(nbItems, 42);
+        this.mdd   = new LinkedDecisionDiagram<>();
+        this.input = new CompilationInput<>(
+            type,
+            problem,
+            new GeneratedKnapsack.Relax(problem),
+            new DefaultVariableHeuristic<>(),
+            new GeneratedKnapsack.Ranking(),
+            new SubProblem<>(problem.intialState(), problem.initialValue(), Integer.MAX_VALUE, DecisionPath.empty()),
+            width,
+            Integer.MIN_VALUE);
+    }
+
+    @Benchmark
+    public int compile() {
+        mdd.compile(input);
+        return mdd.bestValue().orElse(Integer.MIN_VALUE);
+    }
+}
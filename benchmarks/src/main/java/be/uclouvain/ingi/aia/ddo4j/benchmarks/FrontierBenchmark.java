@@ -0,0 +1,83 @@
+package be.uclouvain.ingi.aia.ddo4j.benchmarks;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import be.uclouvain.ingi.aia.ddo4j.core.DecisionPath;
+import be.uclouvain.ingi.aia.ddo4j.core.Frontier;
+import be.uclouvain.ingi.aia.ddo4j.core.SubProblem;
+import be.uclouvain.ingi.aia.ddo4j.implem.frontier.NoDuplicateFrontier;
+import be.uclouvain.ingi.aia.ddo4j.implem.frontier.SimpleFrontier;
+
+/**
+ * Measures the throughput of the frontiers: all the subproblems of a batch are
+ * pushed onto an empty frontier and then popped until the frontier is empty.
+ * Some of the subproblems of the batch share the same state (as it happens
+ * when the cutsets of several diagrams overlap).
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class FrontierBenchmark {
+    /** The frontier implementation */
+    @Param({"simple", "noDuplicate"})
+    public String frontier;
+    /** The number of subproblems of the batch */
+    @Param({"1000", "100000"})
+    public int size;
+    /** The number of subproblems sharing each state (on average) */
+    @Param({"1", "4"})
+    public int duplicates;
+
+    /** The batch of subproblems */
+    private SubProblem<GeneratedKnapsack.State>[] batch;
+    /** The ranking of the states */
+    private GeneratedKnapsack.Ranking ranking;
+
+    @Setup
+    @SuppressWarnings("unchecked")
+    public void setup() {
+        final Random rnd    = new Random(42);
+        final int nbStates  = Math.max(1, size / duplicates);
+        this.ranking        = new GeneratedKnapsack.Ranking();
+        this.batch          = new SubProblem[size];
+        for (int i = 0; i < size; i++) {
+            final int s     = rnd.nextInt(nbStates);
+            final int value = rnd.nextInt(10_000);
+            batch[i] = new SubProblem<>(
+                new GeneratedKnapsack.State(s, 0),
+                value,
+                value + rnd.nextInt(10_000),
+                DecisionPath.empty().with(0, s & 1));
+        }
+    }
+
+    @Benchmark
+    public void pushThenPop(final Blackhole bh) {
+        final Frontier<GeneratedKnapsack.State> f = "simple".equals(frontier)
+            ? new SimpleFrontier<>(ranking)
+            : new NoDuplicateFrontier<>(ranking);
+        for (SubProblem<GeneratedKnapsack.State> sub : batch) {
+            f.push(sub);
+        }
+        while (!f.isEmpty()) {
+            bh.consume(f.pop());
+        }
+    }
+}
@@ -0,0 +1,156 @@
+package be.uclouvain.ingi.aia.ddo4j.benchmarks;
+
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Random;
+import java.util.function.IntConsumer;
+
+import be.uclouvain.ingi.aia.ddo4j.core.Decision;
+import be.uclouvain.ingi.aia.ddo4j.core.Problem;
+import be.uclouvain.ingi.aia.ddo4j.core.Relaxation;
+import be.uclouvain.ingi.aia.ddo4j.core.VarSet;
+import be.uclouvain.ingi.aia.ddo4j.heuristics.StateRanking;
+
+/**
+ * A randomly generated knapsack instance which is used by all the benchmarks.
+ * The instances are generated from a fixed seed so that two runs of the
+ * benchmarks measure the very same work. The weights and values of the items
+ * are strongly correlated, which makes the instances hard to solve.
+ */
+public final class GeneratedKnapsack implements Problem<GeneratedKnapsack.State> {
+    /** when you decide to not take the item in the sack */
+    private static final int NO  = 0;
+    /** when you decide to take the item in the sack */
+    private static final int YES = 1;
+    /** domain with only the no value */
+    private static final List<Integer> DOM_NO = Arrays.asList(NO);
+    /** domain where you could chose to either pick the item in the sack or leave it out */
+    private static final List<Integer> DOM_YES_NO = Arrays.asList(YES, NO);
+
+    /** The weight of each item */
+    final int[] weight;
+    /** The value of each item */
+    final int[] value;
+    /** The capacity of the sack */
+    final int capacity;
+
+    /**
+     * Generates a new instance
+     *
+     * @param nbItems the number of items of the instance
+     * @param seed the seed of the generator
+     */
+    public GeneratedKnapsack(final int nbItems, final long seed) {
+        final Random rnd = new Random(seed);
+        this.weight      = new int[nbItems];
+        this.value       = new int[nbItems];
+        for (int i = 0; i < nbItems; i++) {
+            weight[i] = 100 + rnd.nextInt(1000);
+            value[i]  = weight[i] + rnd.nextInt(100);
+        }
+        this.capacity = nbItems * 300;
+    }
+
+    @Override
+    public int nbVars() {
+        return weight.length;
+    }
+    @Override
+    public State intialState() {
+        return new State(capacity, 0);
+    }
+    @Override
+    public int initialValue() {
+        return 0;
+    }
+    @Override
+    public Iterator<Integer> domain(final State state, final int var) {
+        if (state.capacity >= weight[var]) {
+            return DOM_YES_NO.iterator();
+        } else {
+            return DOM_NO.iterator();
+        }
+    }
+    @Override
+    public void domain(final State state, final int var, final IntConsumer action) {
+        if (state.capacity >= weight[var]) {
+            action.accept(YES);
+        }
+        action.accept(NO);
+    }
+    @Override
+    public State transition(final State state, final Decision decision) {
+        return new State(state.capacity - decision.val() * weight[decision.var()], state.depth + 1);
+    }
+    @Override
+    public int transitionCost(final State state, final Decision decision) {
+        return decision.val() * value[decision.var()];
+    }
+
+    /** The state of the knapsack: its remaining capacity once some items have been considered */
+    public static final class State {
+        /** The remaining capacity */
+        final int capacity;
+        /** The number of items which have been considered */
+        final int depth;
+
+        public State(final int capacity, final int depth) {
+            this.capacity = capacity;
+            this.depth    = depth;
+        }
+        @Override
+        public int hashCode() {
+            return 31 * capacity + depth;
+        }
+        @Override
+        public boolean equals(final Object o) {
+            if (!(o instanceof State)) {
+                return false;
+            }
+            final State that = (State) o;
+            return this.capacity == that.capacity && this.depth == that.depth;
+        }
+    }
+
+    /** The relaxation of the knapsack: the merged state keeps the largest capacity */
+    public static final class Relax implements Relaxation<State> {
+        /** The relaxed problem */
+        private final GeneratedKnapsack problem;
+
+        public Relax(final GeneratedKnapsack problem) {
+            this.problem = problem;
+        }
+        @Override
+        public State mergeStates(final Iterator<State> states) {
+            int capacity = Integer.MIN_VALUE;
+            int depth    = 0;
+            while (states.hasNext()) {
+                final State next = states.next();
+                capacity = Math.max(capacity, next.capacity);
+                depth    = next.depth;
+            }
+            return new State(capacity, depth);
+        }
+        @Override
+        public int relaxEdge(final State from, final State to, final State merged, final Decision d, final int cost) {
+            return cost;
+        }
+        @Override
+        public int fastUpperBound(final State state, final VarSet variables) {
+            int total = 0;
+            for (int i = variables.nextVar(0); i >= 0; i = variables.nextVar(i + 1)) {
+                total += problem.value[i];
+            }
+            return total;
+        }
+    }
+
+    /** The states having the largest remaining capacity are the most promising ones */
+    public static final class Ranking implements StateRanking<State> {
+        @Override
+        public int compare(final State o1, final State o2) {
+            return Integer.compare(o1.capacity, o2.capacity);
+        }
+    }
+}
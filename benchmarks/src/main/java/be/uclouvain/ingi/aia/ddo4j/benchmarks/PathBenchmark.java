@@ -0,0 +1,101 @@
+package be.uclouvain.ingi.aia.ddo4j.benchmarks;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import be.uclouvain.ingi.aia.ddo4j.core.CompilationInput;
+import be.uclouvain.ingi.aia.ddo4j.core.CompilationType;
+import be.uclouvain.ingi.aia.ddo4j.core.Decision;
+import be.uclouvain.ingi.aia.ddo4j.core.DecisionPath;
+import be.uclouvain.ingi.aia.ddo4j.core.SubProblem;
+import be.uclouvain.ingi.aia.ddo4j.implem.heuristics.DefaultVariableHeuristic;
+import be.uclouvain.ingi.aia.ddo4j.implem.mdd.LinkedDecisionDiagram;
+
+/**
+ * Measures the cost of materializing the paths of the subproblems:
+ *
+ * - `cutset` compiles a relaxed diagram and turns its exact cutset into
+ *   subproblems (which computes the path to each node of the cutset). The time
+ *   to compile the diagram alone is measured by the CompileBenchmark.
+ * - `iterate` walks the decisions of the path of each subproblem.
+ * - `copy` copies the path of each subproblem into a hash set.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PathBenchmark {
+    /** The number of items of the instance */
+    @Param({"50", "200"})
+    public int nbItems;
+    /** The maximum width of the layers */
+    @Param({"100"})
+    public int width;
+
+    /** The diagram being compiled */
+    private LinkedDecisionDiagram<GeneratedKnapsack.State> mdd;
+    /** The parameters of the compilation */
+    private CompilationInput<GeneratedKnapsack.State> input;
+    /** The subproblems of the exact cutset of the relaxed diagram */
+    private ArrayList<SubProblem<GeneratedKnapsack.State>> cutset;
+
+    @Setup
+    public void setup() {
+        final GeneratedKnapsack problem = new GeneratedKnapsack(nbItems, 42);
+        this.mdd   = new LinkedDecisionDiagram<>();
+        this.input = new CompilationInput<>(
+            CompilationType.Relaxed,
+            problem,
+            new GeneratedKnapsack.Relax(problem),
+            new DefaultVariableHeuristic<>(),
+            new GeneratedKnapsack.Ranking(),
+            new SubProblem<>(problem.intialState(), problem.initialValue(), Integer.MAX_VALUE, DecisionPath.empty()),
+            width,
+            Integer.MIN_VALUE);
+        this.cutset = new ArrayList<>();
+        mdd.compile(input);
+        mdd.exactCutset().forEachRemaining(cutset::add);
+    }
+
+    @Benchmark
+    public void cutset(final Blackhole bh) {
+        mdd.compile(input);
+        final Iterator<SubProblem<GeneratedKnapsack.State>> it = mdd.exactCutset();
+        while (it.hasNext()) {
+            bh.consume(it.next());
+        }
+    }
+
+    @Benchmark
+    public void iterate(final Blackhole bh) {
+        for (SubProblem<GeneratedKnapsack.State> sub : cutset) {
+            for (Decision d : sub.getPath()) {
+                bh.consume(d);
+            }
+        }
+    }
+
+    @Benchmark
+    public void copy(final Blackhole bh) {
+        for (SubProblem<GeneratedKnapsack.State> sub : cutset) {
+            bh.consume(new HashSet<>(sub.getPath()));
+        }
+    }
+}
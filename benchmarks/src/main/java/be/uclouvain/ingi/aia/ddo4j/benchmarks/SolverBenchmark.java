@@ -0,0 +1,68 @@
+package be.uclouvain.ingi.aia.ddo4j.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import be.uclouvain.ingi.aia.ddo4j.implem.frontier.SimpleFrontier;
+import be.uclouvain.ingi.aia.ddo4j.implem.heuristics.DefaultVariableHeuristic;
+import be.uclouvain.ingi.aia.ddo4j.implem.heuristics.FixedWidth;
+import be.uclouvain.ingi.aia.ddo4j.implem.solver.ParallelSolver;
+
+/**
+ * Measures the time it takes the parallel solver to solve a knapsack instance
+ * to optimality, with an increasing number of threads. The threads either share
+ * one frontier or each own a frontier (work stealing).
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 5)
+@Fork(1)
+public class SolverBenchmark {
+    /** The number of items of the instance */
+    @Param({"24"})
+    public int nbItems;
+    /** The maximum width of the layers */
+    @Param({"100"})
+    public int width;
+    /** The number of threads of the solver */
+    @Param({"1", "2", "4", "8"})
+    public int threads;
+    /** True iff each thread owns a frontier */
+    @Param({"false", "true"})
+    public boolean workStealing;
+
+    /** The instance being solved */
+    private GeneratedKnapsack problem;
+
+    @Setup
+    public void setup() {
+        this.problem = new GeneratedKnapsack(nbItems, 42);
+    }
+
+    @Benchmark
+    public int maximize() {
+        final GeneratedKnapsack.Ranking ranking = new GeneratedKnapsack.Ranking();
+        final ParallelSolver<GeneratedKnapsack.State> solver = workStealing
+            ? new ParallelSolver<>(threads, problem, new GeneratedKnapsack.Relax(problem),
+                new DefaultVariableHeuristic<>(), ranking, new FixedWidth<>(width),
+                () -> new SimpleFrontier<>(ranking))
+            : new ParallelSolver<>(threads, problem, new GeneratedKnapsack.Relax(problem),
+                new DefaultVariableHeuristic<>(), ranking, new FixedWidth<>(width),
+                new SimpleFrontier<>(ranking));
+        solver.maximize();
+        return solver.bestValue().get();
+    }
+}
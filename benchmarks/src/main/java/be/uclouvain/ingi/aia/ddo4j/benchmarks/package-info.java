@@ -0,0 +1,6 @@
+/**
+ * This package contains the JMH benchmarks of the library. They all work on
+ * generated knapsack instances (see GeneratedKnapsack) so that the successive
+ * versions of the library can be compared on the very same workload.
+ */
+package be.uclouvain.ingi.aia.ddo4j.benchmarks;
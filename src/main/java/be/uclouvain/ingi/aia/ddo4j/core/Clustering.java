@@ -0,0 +1,58 @@
+package be.uclouvain.ingi.aia.ddo4j.core;
+
+import java.util.function.Function;
+
+/**
+ * A clustering tells how the nodes of an over wide layer are merged when a
+ * relaxed decision diagram is compiled. By default, all the nodes which do not
+ * fit in the layer are merged into one single node. With a clustering, these
+ * nodes are partitioned into several clusters whose nodes are merged separately
+ * (the layer then keeps fewer exact nodes). Merging similar nodes together costs
+ * a few more merges per layer, but it usually yields much tighter bounds.
+ *
+ * The nodes are either partitioned:
+ *
+ * - by ranking: each cluster gathers nodes which are about equally promising.
+ * - by key: the nodes having the same key (as per a user provided function)
+ *   are deemed similar and end up in the same cluster. When there are more
+ *   distinct keys than clusters, the largest groups of nodes sharing a key get
+ *   a cluster of their own while all the others share the last cluster.
+ */
+public final class Clustering<T> {
+    /** The maximum number of clusters (merged nodes) per relaxed layer */
+    private final int nbClusters;
+    /** The similarity key of the states (null when the nodes are clustered by ranking) */
+    private final Function<? super T, ?> key;
+
+    /** Creates a new instance */
+    private Clustering(final int nbClusters, final Function<? super T, ?> key) {
+        if (nbClusters < 1) {
+            throw new IllegalArgumentException("the number of clusters must be positive " + nbClusters);
+        }
+        this.nbClusters = nbClusters;
+        this.key        = key;
+    }
+    /**
+     * @param nbClusters the maximum number of merged nodes per relaxed layer
+     * @return a clustering which groups the nodes that are about equally promising
+     */
+    public static <T> Clustering<T> byRanking(final int nbClusters) {
+        return new Clustering<>(nbClusters, null);
+    }
+    /**
+     * @param nbClusters the maximum number of merged nodes per relaxed layer
+     * @param key the similarity key of the states (the states having equal keys are similar)
+     * @return a clustering which groups the nodes whose states have the same key
+     */
+    public static <T> Clustering<T> byKey(final int nbClusters, final Function<? super T, ?> key) {
+        return new Clustering<>(nbClusters, key);
+    }
+    /** @return the maximum number of clusters (merged nodes) per relaxed layer */
+    public int getNbClusters() {
+        return nbClusters;
+    }
+    /** @return the similarity key of the states (or null when the nodes are clustered by ranking) */
+    public Function<? super T, ?> getKey() {
+        return key;
+    }
+}
@@ -1,5 +1,8 @@
 package be.uclouvain.ingi.aia.ddo4j.core;
 
+import java.util.function.BooleanSupplier;
+import java.util.function.IntSupplier;
+
 import be.uclouvain.ingi.aia.ddo4j.heuristics.StateRanking;
 import be.uclouvain.ingi.aia.ddo4j.heuristics.VariableHeuristic;
 
@@ -21,8 +24,21 @@ public final class CompilationInput<T> {
     final SubProblem<T> residual;
     /** What is the maximum width of the mdd ? */
     final int maxWidth;
-    /** The best known lower bound at the time when the dd is being compiled */
-    final int bestLB;
+    /** 
+     * The source of the best known lower bound. It may be shared with other threads
+     * and is consulted all along the compilation (hence it must be cheap to read)
+     */
+    final IntSupplier bestLB;
+    /** The dominance relation which is used to discard the nodes of a layer (null when there is none) */
+    final DominanceChecker<T, ?> dominance;
+    /** How the nodes of an over wide layer are merged in a relaxed mdd (null means all in one node) */
+    final Clustering<T> clustering;
+    /** 
+     * Tells whether the compilation must be given up. It is consulted before each 
+     * layer is expanded (hence it must be cheap to evaluate). Null when the compilation
+     * can never be cancelled.
+     */
+    final BooleanSupplier cancelled;
 
     /** Creates the inputs to parameterize the compilation of an MDD */
     public CompilationInput(
@@ -34,6 +50,22 @@ public final class CompilationInput<T> {
         final SubProblem<T> residual,
         final int maxWidth,
         final int bestLB
+    ) {
+        this(compType, problem, relaxation, var, ranking, residual, maxWidth, () -> bestLB, null, null, null);
+    }
+    /** Creates the inputs to parameterize the compilation of an MDD (this is used by the copies) */
+    private CompilationInput(
+        final CompilationType compType,
+        final Problem<T> problem,
+        final Relaxation<T> relaxation,
+        final VariableHeuristic<T> var,
+        final StateRanking<T> ranking,
+        final SubProblem<T> residual,
+        final int maxWidth,
+        final IntSupplier bestLB,
+        final DominanceChecker<T, ?> dominance,
+        final Clustering<T> clustering,
+        final BooleanSupplier cancelled
     ) {
         this.compType = compType;
         this.problem  = problem;
@@ -43,7 +75,38 @@ public final class CompilationInput<T> {
         this.residual = residual;
         this.maxWidth = maxWidth;
         this.bestLB = bestLB;
+        this.dominance = dominance;
+        this.clustering = clustering;
+        this.cancelled = cancelled;
     }
+
+    /** @return a copy of these inputs to compile a dd of the given type */
+    public CompilationInput<T> withCompilationType(final CompilationType compType) {
+        return new CompilationInput<>(compType, problem, relaxation, var, ranking, residual, maxWidth, bestLB, dominance, clustering, cancelled);
+    }
+    /** 
+     * @return a copy of these inputs whose best known lower bound may improve while 
+     *   the compilation is ongoing 
+     */
+    public CompilationInput<T> withBestLB(final IntSupplier bestLB) {
+        return new CompilationInput<>(compType, problem, relaxation, var, ranking, residual, maxWidth, bestLB, dominance, clustering, cancelled);
+    }
+    /** @return a copy of these inputs which discards the dominated nodes of each layer (null for none) */
+    public CompilationInput<T> withDominance(final DominanceChecker<T, ?> dominance) {
+        return new CompilationInput<>(compType, problem, relaxation, var, ranking, residual, maxWidth, bestLB, dominance, clustering, cancelled);
+    }
+    /** 
+     * @return a copy of these inputs which merges the nodes of the over wide layers into 
+     *   several clusters (null to merge them all in one node)
+     */
+    public CompilationInput<T> withClustering(final Clustering<T> clustering) {
+        return new CompilationInput<>(compType, problem, relaxation, var, ranking, residual, maxWidth, bestLB, dominance, clustering, cancelled);
+    }
+    /** @return a copy of these inputs whose compilation can be cancelled while it is ongoing (null for never) */
+    public CompilationInput<T> withCancellation(final BooleanSupplier cancelled) {
+        return new CompilationInput<>(compType, problem, relaxation, var, ranking, residual, maxWidth, bestLB, dominance, clustering, cancelled);
+    }
+
     /** @return how is the dd being compiled ? */
     public CompilationType getCompilationType() {
         return compType;
@@ -72,8 +135,20 @@ public final class CompilationInput<T> {
     public int getMaxWidth() {
         return maxWidth;
     }
-    /** @return best known lower bound at the time when the dd is being compiled */
+    /** @return best known lower bound at the time when this method is called */
     public int getBestLB() {
-        return bestLB;
+        return bestLB.getAsInt();
+    }
+    /** @return the dominance relation among the states (or null if there is none) */
+    public DominanceChecker<T, ?> getDominance() {
+        return dominance;
+    }
+    /** @return how the nodes of an over wide layer are merged (or null if they are all merged in one node) */
+    public Clustering<T> getClustering() {
+        return clustering;
+    }
+    /** @return true iff the compilation must be given up at the time when this method is called */
+    public boolean isCancelled() {
+        return cancelled != null && cancelled.getAsBoolean();
     }
 }
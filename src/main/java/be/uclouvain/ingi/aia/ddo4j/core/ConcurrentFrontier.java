@@ -0,0 +1,14 @@
+package be.uclouvain.ingi.aia.ddo4j.core;
+
+/**
+ * A concurrent frontier is a frontier which can safely be used by several
+ * threads at once, without any external synchronization. The solvers take
+ * advantage of this property to let their threads push nodes concurrently.
+ *
+ * # Note:
+ * Each operation of a concurrent frontier must be atomic. In particular, pop
+ * must return a node whose upper bound is not lower than the upper bound of
+ * any node which was fully pushed (and not yet popped) before pop was called.
+ */
+public interface ConcurrentFrontier<T> extends Frontier<T> {
+}
@@ -0,0 +1,134 @@
+package be.uclouvain.ingi.aia.ddo4j.core;
+
+import java.util.AbstractSet;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+/**
+ * This class describes the path (partial assignment) that leads from the root
+ * of the original problem to some node.
+ *
+ * A path is an immutable chain of decisions where each link points to the path
+ * of its parent. This way, extending a path is a constant time operation and all
+ * the paths that extend one same prefix share the memory of that prefix.
+ *
+ * Because a path never assigns the same variable twice, it can also be seen as
+ * the set of decisions it is made of. Note however that unlike a hash set, the
+ * membership test of a path takes a time which is linear in its length.
+ */
+public final class DecisionPath extends AbstractSet<Decision> {
+    /** The empty path */
+    private static final DecisionPath EMPTY = new DecisionPath(null, 0, 0);
+
+    /** The path to which the last decision has been appended (null for the empty path) */
+    private final DecisionPath prefix;
+    /** The identifier of the variable affected by the last decision */
+    private final int var;
+    /** The value affected to that variable */
+    private final int val;
+    /** The number of decisions in this path */
+    private final int size;
+
+    /**
+     * Instanciates a path
+     * @param prefix the path being extended
+     * @param var the variable affected by the last decision
+     * @param val the value affected to var
+     */
+    private DecisionPath(final DecisionPath prefix, final int var, final int val) {
+        this.prefix = prefix;
+        this.var    = var;
+        this.val    = val;
+        this.size   = prefix == null ? 0 : prefix.size + 1;
+    }
+
+    /** @return the empty path */
+    public static DecisionPath empty() {
+        return EMPTY;
+    }
+    /**
+     * @param decisions the decisions forming a path (each variable may be assigned at most once)
+     * @return a path comprising all the given decisions
+     */
+    public static DecisionPath of(final Collection<Decision> decisions) {
+        if (decisions instanceof DecisionPath) {
+            return (DecisionPath) decisions;
+        }
+        DecisionPath path = EMPTY;
+        for (Decision d : decisions) {
+            path = path.with(d.var(), d.val());
+        }
+        return path;
+    }
+
+    /**
+     * @param var the variable which is affected
+     * @param val the value affected to var
+     * @return a new path extending this one with the decision to affect val to var
+     */
+    public DecisionPath with(final int var, final int val) {
+        return new DecisionPath(this, var, val);
+    }
+    /**
+     * @param decision the decision to append
+     * @return a new path extending this one with the given decision
+     */
+    public DecisionPath with(final Decision decision) {
+        return with(decision.var(), decision.val());
+    }
+    /** @return the path which this one extends with its last decision (null for the empty path) */
+    public DecisionPath prefix() {
+        return prefix;
+    }
+    /** @return the identifier of the variable affected by the last decision of this (non empty) path */
+    public int lastVar() {
+        return var;
+    }
+    /** @return the value affected by the last decision of this (non empty) path */
+    public int lastVal() {
+        return val;
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+    @Override
+    public boolean isEmpty() {
+        return size == 0;
+    }
+    @Override
+    public boolean contains(final Object o) {
+        if (!(o instanceof Decision)) {
+            return false;
+        }
+        final Decision d = (Decision) o;
+        for (DecisionPath p = this; p.size > 0; p = p.prefix) {
+            if (p.var == d.var() && p.val == d.val()) {
+                return true;
+            }
+        }
+        return false;
+    }
+    /** Iterates over the decisions of this path, from the last to the first one */
+    @Override
+    public Iterator<Decision> iterator() {
+        return new Iterator<Decision>() {
+            private DecisionPath current = DecisionPath.this;
+            @Override
+            public boolean hasNext() {
+                return current.size > 0;
+            }
+            @Override
+            public Decision next() {
+                if (!hasNext()) {
+                    throw new NoSuchElementException();
+                }
+                Decision d = new Decision(current.var, current.val);
+                current = current.prefix;
+                return d;
+            }
+        };
+    }
+}
@@ -0,0 +1,54 @@
+package be.uclouvain.ingi.aia.ddo4j.core;
+
+import java.util.List;
+import java.util.function.IntConsumer;
+
+/**
+ * This class implements the default behavior of `Problem.transitions()`: it 
+ * enumerates the domain of each state and computes the next state and the cost
+ * of each transition with two separate calls to the problem.
+ */
+final class DefaultTransitions<T> implements IntConsumer {
+    /** The size of the (lossy) cache of decision objects. This must be a power of two */
+    private static final int DECISION_CACHE_SIZE = 16;
+
+    /** The problem defining the transitions */
+    private final Problem<T> problem;
+    /** The variable being assigned */
+    private final int var;
+    /** The consumer fed with the transitions */
+    private final TransitionConsumer<T> out;
+    /** A lossy cache of decisions which avoids allocating one decision per transition */
+    private final Decision[] decisions;
+    /** The position of the state being expanded in the batch */
+    private int origin;
+    /** The state being expanded */
+    private T state;
+
+    /** Creates a new instance */
+    public DefaultTransitions(final Problem<T> problem, final int var, final TransitionConsumer<T> out) {
+        this.problem   = problem;
+        this.var       = var;
+        this.out       = out;
+        this.decisions = new Decision[DECISION_CACHE_SIZE];
+    }
+    /** Feeds all the transitions of the given states to the consumer */
+    public void expandAll(final List<T> states) {
+        for (int i = 0; i < states.size(); i++) {
+            this.origin = i;
+            this.state  = states.get(i);
+            problem.domain(state, var, this);
+        }
+        this.state = null;
+    }
+    @Override
+    public void accept(final int val) {
+        final int idx = val & (DECISION_CACHE_SIZE - 1);
+        Decision d    = decisions[idx];
+        if (d == null || d.val() != val) {
+            d = new Decision(var, val);
+            decisions[idx] = d;
+        }
+        out.accept(origin, val, problem.transition(state, d), problem.transitionCost(state, d));
+    }
+}
@@ -0,0 +1,36 @@
+package be.uclouvain.ingi.aia.ddo4j.core;
+
+/**
+ * A dominance checker captures some problem specific knowledge which lets the
+ * solver discard the nodes that are dominated by some other node. A state `a`
+ * dominates a state `b` when every completion of `b` is also feasible from `a`
+ * and yields at least the same value. When this is the case, a node for `b` may 
+ * be discarded as soon as a node for `a` with a longest path which is at least
+ * as long is known.
+ *
+ * Only states having the same dominance key are ever compared. Hence, the key 
+ * must at least tell apart the states from which the same decisions cannot be 
+ * made (for instance, the states that lie at different depths).
+ *
+ * # Example:
+ * In the knapsack problem, a state with more remaining capacity than another one
+ * at the same depth dominates it. Hence the key is the depth, and a state `a` 
+ * dominates `b` iff `a.capacity >= b.capacity`.
+ *
+ * @param <T> the type of the states
+ * @param <K> the type of the dominance keys
+ */
+public interface DominanceChecker<T, K> {
+    /**
+     * @param state a state
+     * @return the dominance key of the given state (which must override `equals()` 
+     *   and `hashCode()`)
+     */
+    K dominanceKey(final T state);
+    /**
+     * @param a a state
+     * @param b a state having the same dominance key as `a`
+     * @return true iff `a` dominates `b` (or is equivalent to it)
+     */
+    boolean dominates(final T a, final T b);
+}
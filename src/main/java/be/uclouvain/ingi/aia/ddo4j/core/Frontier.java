@@ -24,6 +24,22 @@ public interface Frontier<T> {
     SubProblem<T> pop();
     /** This method clears the frontier: it removes all nodes from the queue. */
     void clear();
+    /**
+     * This method removes all the nodes whose upper bound is not greater than
+     * the given lower bound from the frontier. It is called whenever the best
+     * known solution improves, so as to reclaim the memory of the nodes that 
+     * have become useless as soon as possible.
+     * 
+     * # Note:
+     * The default implementation does nothing. This is correct since the solvers
+     * never explore a node which cannot improve the best known solution anyway,
+     * but it is recommended that implementations override this method.
+     * 
+     * @param lb the best known lower bound
+     */
+    default void prune(final int lb) {
+        // nothing by default
+    }
     /** @return Yields the length of the queue. */
     int size();
     /** @returns true iff the finge is empty (size == 0) */
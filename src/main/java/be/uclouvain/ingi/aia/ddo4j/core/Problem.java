@@ -1,11 +1,20 @@
 package be.uclouvain.ingi.aia.ddo4j.core;
 
 import java.util.Iterator;
+import java.util.List;
+import java.util.function.IntConsumer;
 
 /**
  * This is the definition of the problem one tries to optimize. It basically
  * consists of a problem's formulation in terms of the labeled transition
  * system semantics of a dynamic programme.
+ * 
+ * # Note:
+ * The decision diagrams enumerate the domains through the `domain` method which
+ * feeds the values to an `IntConsumer`. By default, it is an adapter over the 
+ * one returning an iterator (the signature the models have always been written
+ * against). Overriding it as well spares the boxing of the values and the 
+ * allocation of an iterator.
  */
 public interface Problem<T> {
     /** @return the number of variables in the problem */
@@ -21,6 +30,20 @@ public interface Problem<T> {
      * @return all values in the domain of `var` if a decision is made about the given variable 
      */
     Iterator<Integer> domain(final T state, final int var);
+    /**
+     * Feeds all values in the domain of `var` to the given action (if a decision 
+     * is made about the given variable in the given state)
+     * 
+     * @param state the state from which the tansitions should be applicable
+     * @param var the variable whose domain in being queried
+     * @param action the consumer which is called once for each value of the domain
+     */
+    default void domain(final T state, final int var, final IntConsumer action) {
+        final Iterator<Integer> values = domain(state, var);
+        while (values.hasNext()) {
+            action.accept(values.next());
+        }
+    }
 
     /** 
      * Applies the problem transition function from one state to the next
@@ -38,4 +61,25 @@ public interface Problem<T> {
      * @param decision the decision which is applied to `state`. 
      */
     int transitionCost(final T state, final Decision decision);
+
+    /**
+     * Computes all the transitions that originate from the given states when a
+     * decision is made about the variable `var`. For each state and each value in
+     * the domain of `var` in that state, the next state and the cost of the 
+     * transition are fed to `out` (along with the position of the state in the
+     * batch). 
+     * 
+     * This is the method which is called by the decision diagrams, and the given 
+     * states are a contiguous slice of the layer being expanded. By default, it 
+     * calls `domain()`, `transition()` and `transitionCost()` for each transition;
+     * override it when the next state and the cost of a transition share some
+     * computation, or when that computation can be amortized over a whole batch.
+     * 
+     * @param states the states from which the transitions originate
+     * @param var the variable which is being assigned
+     * @param out the consumer which is fed with each of the transitions
+     */
+    default void transitions(final List<T> states, final int var, final TransitionConsumer<T> out) {
+        new DefaultTransitions<>(this, var, out).expandAll(states);
+    }
 }
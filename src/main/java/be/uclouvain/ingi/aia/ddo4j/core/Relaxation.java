@@ -46,4 +46,18 @@ public interface Relaxation<T> {
     default int fastUpperBound(final T state, final Set<Integer> variables) { 
         return Integer.MAX_VALUE;
     };
+    /**
+     * This is the method which is called by the decision diagrams. By default, it 
+     * simply delegates to `fastUpperBound(T, Set<Integer>)`. Override it to iterate
+     * over the unassigned variables without boxing them.
+     * 
+     * @return a very rough estimation (upper bound) of the optimal value that could be
+     *  reached if state were the initial state
+     * 
+     * @param state the state for which the estimate is to be computed
+     * @param variable the set of unassigned variables
+     */
+    default int fastUpperBound(final T state, final VarSet variables) { 
+        return fastUpperBound(state, (Set<Integer>) variables);
+    }
 }
@@ -0,0 +1,25 @@
+package be.uclouvain.ingi.aia.ddo4j.core;
+
+import java.util.Set;
+
+/**
+ * A solution listener is notified each time a solver improves its best known 
+ * solution. This lets the callers act upon good solutions while the solver 
+ * keeps on searching for better ones (and for a proof of optimality).
+ * 
+ * # Note:
+ * The listeners are notified asynchronously, from a thread which is not one of
+ * the threads of the solver: a slow listener never holds the search back. The
+ * improvements are notified one at a time and in increasing order of value.
+ */
+@FunctionalInterface
+public interface SolutionListener {
+    /**
+     * Receives an improving solution
+     * 
+     * @param value the objective value of the solution
+     * @param solution the decisions which make up the solution
+     * @param timestamp the time (in milliseconds since the epoch) when the solution was found
+     */
+    void improved(final int value, final Set<Decision> solution, final long timestamp);
+}
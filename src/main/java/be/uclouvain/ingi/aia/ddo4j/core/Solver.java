@@ -14,4 +14,26 @@ public interface Solver {
     Optional<Integer> bestValue();
     /** @return the solition leading to the best solution in this decision diagram (if it exists) */
     Optional<Set<Decision>> bestSolution();
+    /** 
+     * Registers a listener which is notified of each improvement of the best known
+     * solution. Listeners may be registered at any time, even while the solver runs.
+     *
+     * # Note:
+     * Notifying listeners is optional: by default, a solver does not support it.
+     * 
+     * @param listener the listener to notify
+     * @throws UnsupportedOperationException when the solver cannot notify listeners
+     */
+    default void addListener(final SolutionListener listener) {
+        throw new UnsupportedOperationException("this solver does not notify listeners");
+    }
+    /** 
+     * Unregisters a listener so that it is not notified anymore. By default, this
+     * does nothing (since no listener could have been registered).
+     * 
+     * @param listener the listener to forget about
+     */
+    default void removeListener(final SolutionListener listener) {
+        // nothing by default
+    }
 }
@@ -20,7 +20,7 @@ public final class SubProblem<T> {
      * The path to traverse to reach this subproblem from the root of the original
      * problem
      */
-    final Set<Decision> path;
+    final DecisionPath path;
 
     /**
      * Creates a new subproblem instance
@@ -35,13 +35,30 @@ public final class SubProblem<T> {
         final T state, 
         final int value, 
         final int ub, 
-        final Set<Decision> path) 
+        final DecisionPath path) 
     {
         this.state = state;
         this.value = value;
         this.ub    = ub;
         this.path  = path;
     }
+    /**
+     * Creates a new subproblem instance from an arbitrary set of decisions
+     * 
+     * @param state the root state of this sub problem
+     * @param value the value of the longest path to this subproblem
+     * @param ub an upper bound on the optimal value reachable when solving the global 
+     *            problem through this sub problem
+     * @param path the partial assignment leading to this subproblem from the root
+     */
+    public SubProblem(
+        final T state, 
+        final int value, 
+        final int ub, 
+        final Set<Decision> path) 
+    {
+        this(state, value, ub, DecisionPath.of(path));
+    }
     /** @return the root state of this subproblem */
     public T getState() {
         return this.state;
@@ -55,7 +72,7 @@ public final class SubProblem<T> {
         return this.ub;
     }
     /** @return the path (partial assignment) which led to this very node */
-    public Set<Decision> getPath() {
+    public DecisionPath getPath() {
         return this.path;
     }
 }
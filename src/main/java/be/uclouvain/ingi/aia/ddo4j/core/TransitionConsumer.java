@@ -0,0 +1,18 @@
+package be.uclouvain.ingi.aia.ddo4j.core;
+
+/**
+ * A transition consumer is fed with the transitions that are generated when a 
+ * decision is made about some variable in each of the states of a batch.
+ */
+@FunctionalInterface
+public interface TransitionConsumer<T> {
+    /**
+     * Receives one transition
+     * 
+     * @param origin the position of the state from which the transition originates in the batch
+     * @param value the value affected to the variable by this transition
+     * @param next the state reached by this transition
+     * @param cost the impact of this transition on the objective value
+     */
+    void accept(final int origin, final int value, final T next, final int cost);
+}
@@ -0,0 +1,231 @@
+package be.uclouvain.ingi.aia.ddo4j.core;
+
+import java.util.AbstractSet;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+/**
+ * This class describes a set of variables. It is backed by a bitset which
+ * makes membership tests, updates and iterations cheap and allocation free
+ * as long as they are performed through the primitive methods of this class.
+ *
+ * Instances of this class are mutable and meant to be reused. A variable set
+ * can also be used wherever a `Set<Integer>` is expected, in which case the
+ * variable identifiers are boxed on the fly.
+ */
+public final class VarSet extends AbstractSet<Integer> {
+    /** The bits telling which variables belong to the set */
+    private long[] words;
+    /** The number of variables in the set */
+    private int cardinality;
+
+    /** Creates an empty set */
+    public VarSet() {
+        this(64);
+    }
+    /**
+     * Creates an empty set which can hold variables 0..capacity-1 without growing
+     * @param capacity the number of variables which can be held without growing
+     */
+    public VarSet(final int capacity) {
+        this.words       = new long[Math.max(1, (capacity + 63) >>> 6)];
+        this.cardinality = 0;
+    }
+    /**
+     * @param variables the identifiers of some variables
+     * @return a new set comprising all the given variables
+     */
+    public static VarSet copyOf(final Collection<Integer> variables) {
+        final VarSet set = new VarSet();
+        for (int v : variables) {
+            set.add(v);
+        }
+        return set;
+    }
+
+    /** @return a new set comprising the same variables as this one */
+    public VarSet copy() {
+        final VarSet set = new VarSet(0);
+        set.words       = words.clone();
+        set.cardinality = cardinality;
+        return set;
+    }
+
+    /**
+     * Resets this set so that it comprises exactly the variables 0..n-1
+     * @param n the number of variables
+     */
+    public void fill(final int n) {
+        ensureCapacity(n);
+        final int full = n >>> 6;
+        Arrays.fill(words, 0, full, -1L);
+        Arrays.fill(words, full, words.length, 0L);
+        if ((n & 63) != 0) {
+            words[full] = (1L << n) - 1;
+        }
+        cardinality = n;
+    }
+    /**
+     * @param var the identifier of a variable
+     * @return true iff the given variable belongs to this set
+     */
+    public boolean contains(final int var) {
+        final int w = var >>> 6;
+        return var >= 0 && w < words.length && (words[w] & (1L << var)) != 0;
+    }
+    /**
+     * Adds a variable to the set
+     * @param var the identifier of the variable
+     * @return true iff the set did not already contain the variable
+     */
+    public boolean add(final int var) {
+        if (var < 0) {
+            throw new IllegalArgumentException("negative variable " + var);
+        }
+        ensureCapacity(var + 1);
+        final int  w    = var >>> 6;
+        final long bit  = 1L << var;
+        final long word = words[w];
+        if ((word & bit) != 0) {
+            return false;
+        }
+        words[w]     = word | bit;
+        cardinality += 1;
+        return true;
+    }
+    /**
+     * Removes a variable from the set
+     * @param var the identifier of the variable
+     * @return true iff the set contained the variable
+     */
+    public boolean remove(final int var) {
+        if (!contains(var)) {
+            return false;
+        }
+        words[var >>> 6] &= ~(1L << var);
+        cardinality -= 1;
+        return true;
+    }
+    /** @return the number of variables in this set */
+    public int cardinality() {
+        return cardinality;
+    }
+    /**
+     * Iterates over the variables of the set. The idiomatic loop reads:
+     * `for (int v = set.nextVar(0); v >= 0; v = set.nextVar(v + 1)) { ... }`
+     *
+     * @param from the smallest variable identifier to consider
+     * @return the smallest variable of the set which is greater than or equal to
+     *   `from`, or -1 if there is none
+     */
+    public int nextVar(final int from) {
+        int w = from >>> 6;
+        if (from < 0 || w >= words.length) {
+            return -1;
+        }
+        long word = words[w] & (-1L << from);
+        while (true) {
+            if (word != 0) {
+                return (w << 6) + Long.numberOfTrailingZeros(word);
+            }
+            if (++w == words.length) {
+                return -1;
+            }
+            word = words[w];
+        }
+    }
+
+    @Override
+    public int size() {
+        return cardinality;
+    }
+    @Override
+    public boolean isEmpty() {
+        return cardinality == 0;
+    }
+    @Override
+    public boolean contains(final Object o) {
+        return (o instanceof Integer) && contains(((Integer) o).intValue());
+    }
+    @Override
+    public boolean add(final Integer var) {
+        return add(var.intValue());
+    }
+    @Override
+    public boolean remove(final Object o) {
+        return (o instanceof Integer) && remove(((Integer) o).intValue());
+    }
+    @Override
+    public void clear() {
+        Arrays.fill(words, 0L);
+        cardinality = 0;
+    }
+    @Override
+    public boolean equals(final Object o) {
+        if (!(o instanceof VarSet)) {
+            return super.equals(o);
+        }
+        final VarSet that = (VarSet) o;
+        if (this.cardinality != that.cardinality) {
+            return false;
+        }
+        final int common = Math.min(this.words.length, that.words.length);
+        for (int i = 0; i < common; i++) {
+            if (this.words[i] != that.words[i]) {
+                return false;
+            }
+        }
+        // the trailing words of the longest set are empty since both sets have the same cardinality
+        return true;
+    }
+    /** @return the sum of the variables of the set (as required by the contract of Set) */
+    @Override
+    public int hashCode() {
+        int hash = 0;
+        for (int v = nextVar(0); v >= 0; v = nextVar(v + 1)) {
+            hash += v;
+        }
+        return hash;
+    }
+    @Override
+    public Iterator<Integer> iterator() {
+        return new Iterator<Integer>() {
+            /** The next variable to return */
+            private int next = nextVar(0);
+            /** The last variable returned */
+            private int last = -1;
+
+            @Override
+            public boolean hasNext() {
+                return next >= 0;
+            }
+            @Override
+            public Integer next() {
+                if (next < 0) {
+                    throw new NoSuchElementException();
+                }
+                last = next;
+                next = nextVar(next + 1);
+                return last;
+            }
+            @Override
+            public void remove() {
+                if (last < 0) {
+                    throw new IllegalStateException();
+                }
+                VarSet.this.remove(last);
+                last = -1;
+            }
+        };
+    }
+
+    /** Makes sure the set can hold the variables 0..n-1 */
+    private void ensureCapacity(final int n) {
+        final int needed = (n + 63) >>> 6;
+        if (needed > words.length) {
+            words = Arrays.copyOf(words, Math.max(needed, 2 * words.length));
+        }
+    }
+}
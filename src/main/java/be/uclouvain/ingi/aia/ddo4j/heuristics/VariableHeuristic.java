@@ -3,12 +3,31 @@ package be.uclouvain.ingi.aia.ddo4j.heuristics;
 import java.util.Iterator;
 import java.util.Set;
 
+import be.uclouvain.ingi.aia.ddo4j.core.VarSet;
+
 /** 
  * A variable heuristic is used to determine the next variable to branch on.
  * To help making its decision, the heuristic is given an access to the 
  * nodes from the layer that is about to be expanded.
+ * 
+ * # Note:
+ * The decision diagrams call the `nextVariable` method which accepts a `VarSet`.
+ * By default, it is an adapter which forwards the call to the one accepting a 
+ * `Set<Integer>` (the signature the heuristics have always been written against).
+ * Overriding it as well lets the heuristic iterate over the variables without 
+ * boxing them.
  */
 public interface VariableHeuristic<T> {
+    /**
+     * @return The next variable to branch on or null if no decision can be 
+     *  made about any of the states in the next layer
+     * 
+     * @param variables the set of variables that have not been affected yet
+     * @param states the set of states in the next layer
+     */
+    default Integer nextVariable(final VarSet variables, final Iterator<T> states) {
+        return nextVariable((Set<Integer>) variables, states);
+    }
     /**
      * @return The next variable to branch on or null if no decision can be 
      *  made about any of the states in the next layer
@@ -0,0 +1,252 @@
+package be.uclouvain.ingi.aia.ddo4j.implem.frontier;
+
+import java.util.Arrays;
+
+import be.uclouvain.ingi.aia.ddo4j.core.Frontier;
+import be.uclouvain.ingi.aia.ddo4j.core.SubProblem;
+import be.uclouvain.ingi.aia.ddo4j.implem.utils.GenericArrays;
+import be.uclouvain.ingi.aia.ddo4j.implem.utils.Hashing;
+
+/**
+ * The bucket frontier groups the subproblems by upper bound: all the subproblems
+ * having one same upper bound are stored in one same bucket. The buckets are
+ * themselves ordered by a binary heap of the distinct upper bounds.
+ *
+ * Because there are typically much fewer distinct upper bounds than subproblems
+ * in the frontier, pushing and popping a subproblem is a constant time operation
+ * most of the time. The heap of upper bounds is only updated when a bucket is
+ * created or emptied. Also, discarding all the subproblems which cannot improve
+ * a given lower bound costs one operation per bucket rather than per subproblem.
+ *
+ * # Note:
+ * This frontier pops the subproblems in descending upper bound order, as required
+ * by the solvers. However, it does not consult any state ranking: the subproblems
+ * having the same upper bound are popped in the reverse order of their insertion.
+ */
+public final class BucketFrontier<T> implements Frontier<T> {
+    /** The initial number of distinct upper bounds the frontier can hold without growing */
+    private static final int INITIAL_CAPACITY = 16;
+
+    /** The number of subproblems in the frontier */
+    private int size = 0;
+    /** The distinct upper bounds of the non empty buckets, organized as a binary max-heap */
+    private int[] keys = new int[INITIAL_CAPACITY];
+    /** The number of distinct upper bounds in the heap */
+    private int nbKeys = 0;
+    /** The upper bound associated with each slot of the hash table */
+    private int[] tableKeys = new int[2 * INITIAL_CAPACITY];
+    /** The open addressing hash table mapping an upper bound onto its bucket (null when the slot is free) */
+    private Bucket<T>[] table = GenericArrays.newArray(Bucket.class, 2 * INITIAL_CAPACITY);
+
+    @Override
+    public void push(final SubProblem<T> sub) {
+        final int ub = sub.getUpperBound();
+        Bucket<T> bucket = get(ub);
+        if (bucket == null) {
+            bucket = new Bucket<>();
+            put(ub, bucket);
+            heapPush(ub);
+        }
+        bucket.push(sub);
+        size += 1;
+    }
+
+    @Override
+    public SubProblem<T> pop() {
+        if (size == 0) {
+            return null;
+        }
+        final int ub = keys[0];
+        final Bucket<T> bucket = get(ub);
+        final SubProblem<T> sub = bucket.pop();
+        size -= 1;
+        if (bucket.isEmpty()) {
+            remove(ub);
+            heapPop();
+        }
+        return sub;
+    }
+
+    /**
+     * Discards all the subproblems whose upper bound is not greater than the
+     * given lower bound. This costs one operation per distinct upper bound in
+     * the frontier, regardless of the number of discarded subproblems.
+     *
+     * @param lb the best known lower bound
+     */
+    @Override
+    public void prune(final int lb) {
+        int len = 0;
+        for (int i = 0; i < nbKeys; i++) {
+            final int ub = keys[i];
+            if (ub > lb) {
+                keys[len++] = ub;
+            } else {
+                size -= remove(ub).size;
+            }
+        }
+        nbKeys = len;
+        // restore the heap invariant
+        for (int i = (nbKeys >>> 1) - 1; i >= 0; i--) {
+            siftDown(i);
+        }
+    }
+
+    @Override
+    public void clear() {
+        Arrays.fill(table, null);
+        size   = 0;
+        nbKeys = 0;
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    // --- HEAP OF UPPER BOUNDS ------------------------------------------
+    /** Adds an upper bound to the heap */
+    private void heapPush(final int ub) {
+        if (nbKeys == keys.length) {
+            keys = Arrays.copyOf(keys, 2 * nbKeys);
+            // there are at most as many entries in the table as there are keys in the heap
+            rehash(4 * nbKeys);
+        }
+        keys[nbKeys] = ub;
+        siftUp(nbKeys++);
+    }
+    /** Removes the greatest upper bound from the heap */
+    private void heapPop() {
+        keys[0] = keys[--nbKeys];
+        siftDown(0);
+    }
+    /** Moves the key at the given position up until the heap invariant is restored */
+    private void siftUp(int pos) {
+        final int key = keys[pos];
+        while (pos > 0) {
+            final int parent = (pos - 1) >>> 1;
+            if (keys[parent] >= key) {
+                break;
+            }
+            keys[pos] = keys[parent];
+            pos       = parent;
+        }
+        keys[pos] = key;
+    }
+    /** Moves the key at the given position down until the heap invariant is restored */
+    private void siftDown(int pos) {
+        if (pos >= nbKeys) {
+            return;
+        }
+        final int key = keys[pos];
+        while (true) {
+            int child = 2 * pos + 1;
+            if (child >= nbKeys) {
+                break;
+            }
+            if (child + 1 < nbKeys && keys[child + 1] > keys[child]) {
+                child += 1;
+            }
+            if (key >= keys[child]) {
+                break;
+            }
+            keys[pos] = keys[child];
+            pos       = child;
+        }
+        keys[pos] = key;
+    }
+
+    // --- HASH TABLE OF BUCKETS -----------------------------------------
+    /** @return the bucket of the given upper bound (or null if there is none) */
+    private Bucket<T> get(final int ub) {
+        final int mask = table.length - 1;
+        for (int slot = Hashing.spread(ub) & mask; table[slot] != null; slot = (slot + 1) & mask) {
+            if (tableKeys[slot] == ub) {
+                return table[slot];
+            }
+        }
+        return null;
+    }
+    /** Associates a bucket with an upper bound which has no bucket yet */
+    private void put(final int ub, final Bucket<T> bucket) {
+        final int mask = table.length - 1;
+        int slot = Hashing.spread(ub) & mask;
+        while (table[slot] != null) {
+            slot = (slot + 1) & mask;
+        }
+        tableKeys[slot] = ub;
+        table[slot]     = bucket;
+    }
+    /**
+     * Removes the bucket of the given upper bound from the table
+     *
+     * # Note:
+     * The entries following the removed one are shifted backwards (when needed)
+     * so that no lookup ever stops too early on the freed slot.
+     *
+     * @return the removed bucket
+     */
+    private Bucket<T> remove(final int ub) {
+        final int mask = table.length - 1;
+        int hole = Hashing.spread(ub) & mask;
+        while (tableKeys[hole] != ub || table[hole] == null) {
+            hole = (hole + 1) & mask;
+        }
+        final Bucket<T> removed = table[hole];
+        table[hole] = null;
+
+        for (int slot = (hole + 1) & mask; table[slot] != null; slot = (slot + 1) & mask) {
+            final int home = Hashing.spread(tableKeys[slot]) & mask;
+            // the entry must move iff its home slot is not cyclically within (hole, slot]
+            final boolean stays = hole <= slot
+                ? (hole < home && home <= slot)
+                : (hole < home || home <= slot);
+            if (!stays) {
+                tableKeys[hole] = tableKeys[slot];
+                table[hole]     = table[slot];
+                table[slot]     = null;
+                hole            = slot;
+            }
+        }
+        return removed;
+    }
+    /** Rebuilds the hash table with the given capacity (a power of two) */
+    private void rehash(final int capacity) {
+        final int[]       oldKeys  = tableKeys;
+        final Bucket<T>[] oldTable = table;
+        tableKeys = new int[capacity];
+        table     = GenericArrays.newArray(Bucket.class, capacity);
+        for (int i = 0; i < oldTable.length; i++) {
+            if (oldTable[i] != null) {
+                put(oldKeys[i], oldTable[i]);
+            }
+        }
+    }
+
+    /** A bucket holds all the subproblems having one same upper bound (as a stack) */
+    private static final class Bucket<T> {
+        /** The number of subproblems in the bucket */
+        private int size = 0;
+        /** The subproblems of the bucket */
+        private Object[] items = new Object[4];
+
+        /** @return true iff the bucket holds no subproblem */
+        public boolean isEmpty() {
+            return size == 0;
+        }
+        /** Adds a subproblem to the bucket */
+        public void push(final SubProblem<T> sub) {
+            if (size == items.length) {
+                items = Arrays.copyOf(items, 2 * size);
+            }
+            items[size++] = sub;
+        }
+        /** Removes the last subproblem which was added to this bucket */
+        @SuppressWarnings("unchecked")
+        public SubProblem<T> pop() {
+            final SubProblem<T> sub = (SubProblem<T>) items[--size];
+            items[size] = null;
+            return sub;
+        }
+    }
+}
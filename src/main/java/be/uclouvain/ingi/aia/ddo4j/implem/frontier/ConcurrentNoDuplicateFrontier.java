@@ -0,0 +1,213 @@
+package be.uclouvain.ingi.aia.ddo4j.implem.frontier;
+
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import be.uclouvain.ingi.aia.ddo4j.core.ConcurrentFrontier;
+import be.uclouvain.ingi.aia.ddo4j.core.SubProblem;
+import be.uclouvain.ingi.aia.ddo4j.heuristics.StateRanking;
+import be.uclouvain.ingi.aia.ddo4j.implem.utils.GenericArrays;
+import be.uclouvain.ingi.aia.ddo4j.implem.utils.Hashing;
+
+/**
+ * This is the thread safe counterpart of the NoDuplicateFrontier: it never holds
+ * two subproblems having the same state at once. When a subproblem is pushed while
+ * the frontier already holds one with the same state, both are merged (the longest
+ * path and the greatest upper bound are kept).
+ *
+ * # Note:
+ * When a merge races with a pop of the entry being merged, the merged entry
+ * stays in the frontier (the popped entry was no longer there to be replaced).
+ * The state may then be explored twice, but a merge never takes the state out
+ * of the frontier, not even momentarily: a concurrent pop cannot overlook it.
+ *
+ * The frontier comprises two structures:
+ *
+ * - a striped index mapping each state to the entry that holds it. Each stripe
+ *   is a plain hash map protected by its own lock, which means that the threads
+ *   pushing states that belong to distinct stripes never contend with one another.
+ * - a lock free ordered set of entries (a skip list) which pops the entries in
+ *   descending upper bound order.
+ *
+ * # Note:
+ * Just like for the NoDuplicateFrontier, using this frontier requires that the
+ * subproblems having one same root state be equivalent.
+ */
+public final class ConcurrentNoDuplicateFrontier<T> implements ConcurrentFrontier<T> {
+    /** The default number of stripes of the state index */
+    private static final int DEFAULT_STRIPES = 64;
+
+    /** The stripes of the index associating each state with its entry */
+    private final HashMap<T, Entry<T>>[] stripes;
+    /** The entries ordered from the most to the least promising one */
+    private final ConcurrentSkipListSet<Entry<T>> entries;
+    /** The number of entries in the frontier */
+    private final AtomicInteger size;
+    /** The sequence used to tell apart the entries which are otherwise equivalent */
+    private final AtomicLong sequence;
+
+    /**
+     * Creates a new instance
+     *
+     * @param ranking an ordering to tell which of the subproblem is the most promising
+     * and should be explored first.
+     */
+    public ConcurrentNoDuplicateFrontier(final StateRanking<T> ranking) {
+        this(ranking, DEFAULT_STRIPES);
+    }
+    /**
+     * Creates a new instance
+     *
+     * @param ranking an ordering to tell which of the subproblem is the most promising
+     * and should be explored first.
+     * @param nbStripes the number of stripes (independently locked portions) of the state index
+     */
+    public ConcurrentNoDuplicateFrontier(final StateRanking<T> ranking, final int nbStripes) {
+        this.stripes  = GenericArrays.newArray(HashMap.class, nbStripes);
+        this.entries  = new ConcurrentSkipListSet<>(new EntryComparator<>(ranking));
+        this.size     = new AtomicInteger(0);
+        this.sequence = new AtomicLong(0);
+        for (int i = 0; i < nbStripes; i++) {
+            stripes[i] = new HashMap<>();
+        }
+    }
+
+    /**
+     * Pushes one node onto the frontier while ensuring that only one copy of the
+     * node (identified by its state) is kept in the frontier.
+     */
+    @Override
+    public void push(final SubProblem<T> sub) {
+        final HashMap<T, Entry<T>> stripe = stripe(sub.getState());
+        synchronized (stripe) {
+            final Entry<T> current = stripe.get(sub.getState());
+            if (current == null) {
+                add(stripe, sub);
+                size.incrementAndGet();
+                return;
+            }
+
+            final SubProblem<T> prev = current.prob;
+            if (sub.getValue() <= prev.getValue() && sub.getUpperBound() <= prev.getUpperBound()) {
+                return;
+            }
+            // the merged entry is made visible before the current one is removed: 
+            // otherwise, a concurrent pop could miss both and take a less promising entry
+            final SubProblem<T> best = sub.getValue() > prev.getValue() ? sub : prev;
+            add(stripe, new SubProblem<>(
+                best.getState(),
+                best.getValue(),
+                Math.max(sub.getUpperBound(), prev.getUpperBound()),
+                best.getPath()));
+            if (!entries.remove(current)) {
+                // the current entry has just been popped by another thread
+                size.incrementAndGet();
+            }
+        }
+    }
+
+    @Override
+    public SubProblem<T> pop() {
+        final Entry<T> entry = entries.pollFirst();
+        if (entry == null) {
+            return null;
+        }
+        forget(entry);
+        return entry.prob;
+    }
+
+    /**
+     * Removes the entries that cannot improve the given lower bound. Those are
+     * the last entries of the ordered set.
+     */
+    @Override
+    public void prune(final int lb) {
+        Entry<T> entry;
+        while ((entry = lowest()) != null && entry.prob.getUpperBound() <= lb) {
+            if (entries.remove(entry)) {
+                forget(entry);
+            }
+        }
+    }
+
+    @Override
+    public void clear() {
+        Entry<T> entry;
+        while ((entry = entries.pollFirst()) != null) {
+            forget(entry);
+        }
+    }
+
+    @Override
+    public int size() {
+        return size.get();
+    }
+
+    /** Adds an entry for the given subproblem to the frontier (the lock of the stripe must be held) */
+    private void add(final HashMap<T, Entry<T>> stripe, final SubProblem<T> sub) {
+        final Entry<T> entry = new Entry<>(sub, sequence.getAndIncrement());
+        stripe.put(sub.getState(), entry);
+        entries.add(entry);
+    }
+    /** Removes an entry which has been taken out of the ordered set from the state index */
+    private void forget(final Entry<T> entry) {
+        size.decrementAndGet();
+        final HashMap<T, Entry<T>> stripe = stripe(entry.prob.getState());
+        synchronized (stripe) {
+            // the state might already be associated with an other entry
+            stripe.remove(entry.prob.getState(), entry);
+        }
+    }
+    /** @return the least promising entry of the frontier (or null if it is empty) */
+    private Entry<T> lowest() {
+        final Iterator<Entry<T>> it = entries.descendingIterator();
+        return it.hasNext() ? it.next() : null;
+    }
+    /** @return the stripe of the index where the given state belongs */
+    private HashMap<T, Entry<T>> stripe(final T state) {
+        return stripes[Hashing.index(state, stripes.length)];
+    }
+
+    /** An entry of the frontier */
+    private static final class Entry<T> {
+        /** The subproblem which is represented */
+        final SubProblem<T> prob;
+        /** A unique number which tells this entry apart from the others */
+        final long seq;
+
+        public Entry(final SubProblem<T> prob, final long seq) {
+            this.prob = prob;
+            this.seq  = seq;
+        }
+    }
+
+    /** Orders the entries from the most to the least promising one: by ub, then state, then sequence */
+    private static final class EntryComparator<T> implements Comparator<Entry<T>> {
+        /** This is the decorated ranking */
+        private final StateRanking<T> delegate;
+
+        /**
+         * Creates a new instance
+         * @param delegate the decorated ranking
+         */
+        public EntryComparator(final StateRanking<T> delegate) {
+            this.delegate = delegate;
+        }
+
+        @Override
+        public int compare(final Entry<T> o1, final Entry<T> o2) {
+            int cmp = Integer.compare(o2.prob.getUpperBound(), o1.prob.getUpperBound());
+            if (cmp == 0) {
+                cmp = delegate.compare(o2.prob.getState(), o1.prob.getState());
+            }
+            if (cmp == 0) {
+                cmp = Long.compare(o1.seq, o2.seq);
+            }
+            return cmp;
+        }
+    }
+}
@@ -0,0 +1,229 @@
+package be.uclouvain.ingi.aia.ddo4j.implem.frontier;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Objects;
+
+import be.uclouvain.ingi.aia.ddo4j.core.DominanceChecker;
+import be.uclouvain.ingi.aia.ddo4j.core.Frontier;
+import be.uclouvain.ingi.aia.ddo4j.core.SubProblem;
+
+/**
+ * The dominance frontier decorates another frontier so as to discard the
+ * subproblems that are dominated by another subproblem of the frontier. A
+ * subproblem `a` dominates a subproblem `b` when their states have the same
+ * dominance key, the state of `a` dominates that of `b` and the longest path
+ * to `a` is at least as long as the one to `b`.
+ *
+ * - A pushed subproblem which is dominated by a subproblem of the frontier is
+ *   simply ignored.
+ * - The subproblems of the frontier which are dominated by a pushed subproblem
+ *   are discarded. Because they cannot be removed from the decorated frontier,
+ *   they are only forgotten: they do not count in the size of this frontier and
+ *   they are skipped when popped.
+ *
+ * # Note:
+ * The discarded subproblems are recognized by their contents (dominance key,
+ * value, upper bound and equivalent states) rather than by their identity.
+ * Hence the decorated frontier may hand back copies of the subproblems it was
+ * given (this is what the SpillingFrontier does). It must however neither merge
+ * nor alter them: the NoDuplicateFrontier and the ConcurrentNoDuplicateFrontier
+ * are not supported. The decorated frontier must not be shared with other threads
+ * either, since this frontier is not thread safe.
+ *
+ * # Note:
+ * A pushed subproblem is only compared with the (at most MAX_COMPARISONS) most
+ * recently pushed subproblems having the same dominance key which are still in
+ * the frontier. This bounds the cost of a push, even when the dominance key puts
+ * all the subproblems in one same group. A dominated subproblem might thus go
+ * unnoticed, which is safe: it is merely explored.
+ */
+public final class DominanceFrontier<T, K> implements Frontier<T> {
+    /** The maximum number of subproblems a pushed subproblem is compared with */
+    private static final int MAX_COMPARISONS = 64;
+
+    /** The decorated frontier */
+    private final Frontier<T> delegate;
+    /** The dominance relation among the states */
+    private final DominanceChecker<T, K> dominance;
+    /** The most recently pushed live subproblems of the frontier, grouped by dominance key */
+    private final HashMap<K, ArrayList<SubProblem<T>>> groups;
+    /** The subproblems held by the decorated frontier that have been discarded */
+    private final HashMap<Slot<K>, ArrayList<SubProblem<T>>> discarded;
+    /** The number of discarded subproblems */
+    private int nbDiscarded;
+
+    /**
+     * Creates a new instance
+     *
+     * @param delegate the decorated frontier (which must be empty)
+     * @param dominance the dominance relation among the states
+     */
+    public DominanceFrontier(final Frontier<T> delegate, final DominanceChecker<T, K> dominance) {
+        this.delegate    = delegate;
+        this.dominance   = dominance;
+        this.groups      = new HashMap<>();
+        this.discarded   = new HashMap<>();
+        this.nbDiscarded = 0;
+    }
+
+    @Override
+    public void push(final SubProblem<T> sub) {
+        final K key = dominance.dominanceKey(sub.getState());
+        ArrayList<SubProblem<T>> group = groups.get(key);
+        if (group == null) {
+            group = new ArrayList<>();
+            groups.put(key, group);
+        }
+
+        for (int i = group.size() - 1; i >= 0; i--) {
+            final SubProblem<T> other = group.get(i);
+            if (dominates(other, sub)) {
+                return;
+            }
+            if (dominates(sub, other)) {
+                discard(key, other);
+                group.remove(i);
+            }
+        }
+        if (group.size() == MAX_COMPARISONS) {
+            // the oldest subproblem is still live, it is only no longer compared
+            group.remove(0);
+        }
+        group.add(sub);
+        delegate.push(sub);
+    }
+
+    @Override
+    public SubProblem<T> pop() {
+        SubProblem<T> sub = delegate.pop();
+        while (sub != null && forget(sub)) {
+            sub = delegate.pop();
+        }
+        return sub;
+    }
+
+    @Override
+    public void prune(final int lb) {
+        final int before = delegate.size();
+        delegate.prune(lb);
+        if (delegate.size() != before) {
+            // the decorated frontier might have removed discarded and live subproblems alike
+            final Iterator<Map.Entry<Slot<K>, ArrayList<SubProblem<T>>>> it = discarded.entrySet().iterator();
+            while (it.hasNext()) {
+                final Map.Entry<Slot<K>, ArrayList<SubProblem<T>>> entry = it.next();
+                if (entry.getKey().ub <= lb) {
+                    nbDiscarded -= entry.getValue().size();
+                    it.remove();
+                }
+            }
+            for (ArrayList<SubProblem<T>> group : groups.values()) {
+                group.removeIf(sub -> sub.getUpperBound() <= lb);
+            }
+            groups.values().removeIf(ArrayList::isEmpty);
+        }
+    }
+
+    @Override
+    public void clear() {
+        delegate.clear();
+        groups.clear();
+        discarded.clear();
+        nbDiscarded = 0;
+    }
+
+    @Override
+    public int size() {
+        return delegate.size() - nbDiscarded;
+    }
+
+    /** @return true iff the subproblem a dominates the subproblem b */
+    private boolean dominates(final SubProblem<T> a, final SubProblem<T> b) {
+        return a.getValue() >= b.getValue() && dominance.dominates(a.getState(), b.getState());
+    }
+    /** @return true iff a and b are equivalent: same value and upper bound, equivalent states */
+    private boolean equivalent(final SubProblem<T> a, final SubProblem<T> b) {
+        return a.getValue() == b.getValue()
+            && a.getUpperBound() == b.getUpperBound()
+            && dominance.dominates(a.getState(), b.getState())
+            && dominance.dominates(b.getState(), a.getState());
+    }
+    /** Remembers that the given subproblem held by the decorated frontier has been discarded */
+    private void discard(final K key, final SubProblem<T> sub) {
+        final Slot<K> slot = new Slot<>(key, sub);
+        ArrayList<SubProblem<T>> same = discarded.get(slot);
+        if (same == null) {
+            same = new ArrayList<>(1);
+            discarded.put(slot, same);
+        }
+        same.add(sub);
+        nbDiscarded += 1;
+    }
+    /**
+     * Forgets about a subproblem which has been popped from the decorated frontier
+     *
+     * @return true iff that subproblem had been discarded (and must be skipped)
+     */
+    private boolean forget(final SubProblem<T> sub) {
+        final K key = dominance.dominanceKey(sub.getState());
+
+        final Slot<K> slot = new Slot<>(key, sub);
+        final ArrayList<SubProblem<T>> same = discarded.get(slot);
+        if (same != null) {
+            for (int i = same.size() - 1; i >= 0; i--) {
+                if (equivalent(same.get(i), sub)) {
+                    same.remove(i);
+                    if (same.isEmpty()) {
+                        discarded.remove(slot);
+                    }
+                    nbDiscarded -= 1;
+                    return true;
+                }
+            }
+        }
+
+        final ArrayList<SubProblem<T>> group = groups.get(key);
+        if (group != null) {
+            for (int i = group.size() - 1; i >= 0; i--) {
+                if (equivalent(group.get(i), sub)) {
+                    group.remove(i);
+                    break;
+                }
+            }
+            if (group.isEmpty()) {
+                groups.remove(key);
+            }
+        }
+        return false;
+    }
+
+    /** The subproblems having one same dominance key, value and upper bound */
+    private static final class Slot<K> {
+        /** The dominance key of the subproblems */
+        final K key;
+        /** The value of the subproblems */
+        final int value;
+        /** The upper bound of the subproblems */
+        final int ub;
+
+        public Slot(final K key, final SubProblem<?> sub) {
+            this.key   = key;
+            this.value = sub.getValue();
+            this.ub    = sub.getUpperBound();
+        }
+        @Override
+        public int hashCode() {
+            return Objects.hash(key, value, ub);
+        }
+        @Override
+        public boolean equals(final Object o) {
+            if (!(o instanceof Slot)) {
+                return false;
+            }
+            final Slot<?> other = (Slot<?>) o;
+            return value == other.value && ub == other.ub && Objects.equals(key, other.key);
+        }
+    }
+}
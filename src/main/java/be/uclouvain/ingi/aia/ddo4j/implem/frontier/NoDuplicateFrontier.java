@@ -59,8 +59,14 @@ public final class NoDuplicateFrontier<T> implements Frontier<T> {
             heap.add(entry);
             bubbleUp(entry);
         } else {
-            if (compare.compare(entry.prob, sub) > 0) {
-                entry.prob = sub;
+            SubProblem<T> prev = entry.prob;
+            if (sub.getValue() > prev.getValue() || sub.getUpperBound() > prev.getUpperBound()) {
+                SubProblem<T> best = sub.getValue() > prev.getValue() ? sub : prev;
+                entry.prob = new SubProblem<>(
+                    best.getState(), 
+                    best.getValue(), 
+                    Math.max(sub.getUpperBound(), prev.getUpperBound()), 
+                    best.getPath());
                 bubbleUp(entry);
             }
         }
@@ -89,6 +95,28 @@ public final class NoDuplicateFrontier<T> implements Frontier<T> {
         return head.prob;
     }
 
+    /**
+     * Removes all the nodes that cannot improve the given lower bound, then 
+     * restores the heap invariant in linear time.
+     */
+    @Override
+    public void prune(final int lb) {
+        int len = 0;
+        for (int i = 0; i < heap.size(); i++) {
+            SubProblemEntry<T> entry = heap.get(i);
+            if (entry.prob.getUpperBound() > lb) {
+                entry.position = len;
+                heap.set(len++, entry);
+            } else {
+                states.remove(entry.prob.getState());
+            }
+        }
+        heap.subList(len, heap.size()).clear();
+        for (int i = len / 2 - 1; i >= 0; i--) {
+            bubbleDown(heap.get(i));
+        }
+    }
+
     @Override
     public void clear() {
         states.clear();
@@ -244,7 +272,7 @@ public final class NoDuplicateFrontier<T> implements Frontier<T> {
 
         @Override
         public int compare(SubProblem<T> o1, SubProblem<T> o2) {
-            int cmp = o1.getUpperBound() - o2.getUpperBound();
+            int cmp = Integer.compare(o1.getUpperBound(), o2.getUpperBound());
             if (cmp == 0) {
                 return delegate.compare(o1.getState(), o2.getState());
             } else {
@@ -35,6 +35,11 @@ public final class SimpleFrontier<T> implements Frontier<T> {
         return heap.poll();
     }
 
+    @Override
+    public void prune(final int lb) {
+        heap.removeIf(sub -> sub.getUpperBound() <= lb);
+    }
+
     @Override
     public void clear() {
         heap.clear();
@@ -60,7 +65,7 @@ public final class SimpleFrontier<T> implements Frontier<T> {
 
         @Override
         public int compare(SubProblem<T> o1, SubProblem<T> o2) {
-            int cmp = o1.getUpperBound() - o2.getUpperBound();
+            int cmp = Integer.compare(o1.getUpperBound(), o2.getUpperBound());
             if (cmp == 0) {
                 return delegate.compare(o1.getState(), o2.getState());
             } else {
@@ -0,0 +1,381 @@
+package be.uclouvain.ingi.aia.ddo4j.implem.frontier;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.TreeMap;
+
+import be.uclouvain.ingi.aia.ddo4j.core.DecisionPath;
+import be.uclouvain.ingi.aia.ddo4j.core.Frontier;
+import be.uclouvain.ingi.aia.ddo4j.core.SubProblem;
+
+/**
+ * The spilling frontier is a frontier whose memory footprint is bounded. It
+ * keeps at most a given number of subproblems in memory. When that budget is
+ * exceeded, the least promising subproblems (those having the lowest upper
+ * bounds) are written to a file -- a run -- on the local disk. A run is read
+ * back into memory as soon as it holds the most promising subproblems of the
+ * frontier. This way, the subproblems are still popped in descending upper
+ * bound order.
+ *
+ * # Note:
+ * The states of the subproblems are written to disk with a user provided state
+ * serializer. The paths of the subproblems are written as well: unlike in memory,
+ * the paths stored on disk do not share their common prefixes.
+ *
+ * # Note:
+ * When a run is read back into memory, the budget may be exceeded by the size
+ * of that run: the subproblems which have just been read are not spilled again
+ * before the next push.
+ *
+ * # Note:
+ * A run file is deleted as soon as it is read back, pruned away or cleared. 
+ * When the frontier creates its own temporary directory, that directory is 
+ * only created when the first run is written, and it is deleted by `clear()`.
+ *
+ * # Note:
+ * The subproblems having one same upper bound are (mostly) popped in the reverse
+ * order of their insertion: the oldest ones are spilled first, and they are put
+ * back behind the others when they are read back. The state ranking is never consulted.
+ */
+public final class SpillingFrontier<T> implements Frontier<T> {
+    /** The maximum number of subproblems that are kept in memory */
+    private final int budget;
+    /** The serializer used to write the states to disk */
+    private final StateSerializer<T> serializer;
+    /** The directory where the runs are written (null until needed when the frontier owns it) */
+    private Path directory;
+    /** True iff the directory is a temporary one which belongs to this frontier */
+    private final boolean ownsDirectory;
+
+    /** The subproblems held in memory, grouped by upper bound */
+    private final TreeMap<Integer, ArrayDeque<SubProblem<T>>> memory;
+    /** The number of subproblems held in memory */
+    private int inMemory;
+    /** The runs that have been written to disk (the one holding the most promising subproblem first) */
+    private final PriorityQueue<Run> runs;
+    /** The number of subproblems stored on disk */
+    private int onDisk;
+
+    /**
+     * Creates a new instance which writes its runs in a fresh temporary directory
+     * (which is deleted by `clear()`)
+     *
+     * @param budget the maximum number of subproblems to keep in memory
+     * @param serializer the serializer used to write the states to disk
+     */
+    public SpillingFrontier(final int budget, final StateSerializer<T> serializer) {
+        this(budget, serializer, null, true);
+    }
+    /**
+     * Creates a new instance
+     *
+     * @param budget the maximum number of subproblems to keep in memory
+     * @param serializer the serializer used to write the states to disk
+     * @param directory the directory where the runs are written
+     */
+    public SpillingFrontier(final int budget, final StateSerializer<T> serializer, final Path directory) {
+        this(budget, serializer, directory, false);
+    }
+    /** Creates a new instance which writes its runs in the given directory (or in its own one) */
+    private SpillingFrontier(
+        final int budget, 
+        final StateSerializer<T> serializer, 
+        final Path directory, 
+        final boolean ownsDirectory) 
+    {
+        if (budget < 1) {
+            throw new IllegalArgumentException("the memory budget must be positive " + budget);
+        }
+        this.budget        = budget;
+        this.serializer    = serializer;
+        this.directory     = directory;
+        this.ownsDirectory = ownsDirectory;
+        this.memory        = new TreeMap<>();
+        this.inMemory      = 0;
+        this.runs          = new PriorityQueue<>((a, b) -> Integer.compare(b.maxUb(), a.maxUb()));
+        this.onDisk        = 0;
+    }
+
+    @Override
+    public void push(final SubProblem<T> sub) {
+        ArrayDeque<SubProblem<T>> bucket = memory.get(sub.getUpperBound());
+        if (bucket == null) {
+            bucket = new ArrayDeque<>();
+            memory.put(sub.getUpperBound(), bucket);
+        }
+        bucket.push(sub);
+        inMemory += 1;
+
+        if (inMemory > budget) {
+            spill();
+        }
+    }
+
+    @Override
+    public SubProblem<T> pop() {
+        if (isEmpty()) {
+            return null;
+        }
+        // make sure the most promising subproblem is in memory
+        Run run = runs.peek();
+        while (run != null && (memory.isEmpty() || run.maxUb() > memory.lastKey())) {
+            pageIn(runs.poll());
+            run = runs.peek();
+        }
+
+        Map.Entry<Integer, ArrayDeque<SubProblem<T>>> top = memory.lastEntry();
+        SubProblem<T> sub = top.getValue().pop();
+        if (top.getValue().isEmpty()) {
+            memory.pollLastEntry();
+        }
+        inMemory -= 1;
+        return sub;
+    }
+
+    /**
+     * Removes the subproblems that cannot improve the given lower bound from
+     * memory and deletes the runs whose subproblems are all dominated. The
+     * dominated subproblems of the other runs are no longer counted, and they
+     * are discarded when the run is read back into memory.
+     */
+    @Override
+    public void prune(final int lb) {
+        Map<Integer, ArrayDeque<SubProblem<T>>> dominated = memory.headMap(lb, true);
+        for (ArrayDeque<SubProblem<T>> bucket : dominated.values()) {
+            inMemory -= bucket.size();
+        }
+        dominated.clear();
+
+        final Iterator<Run> it = runs.iterator();
+        while (it.hasNext()) {
+            Run run = it.next();
+            onDisk -= run.live;
+            if (run.maxUb() <= lb) {
+                it.remove();
+                delete(run);
+            } else {
+                run.prune(lb);
+                onDisk += run.live;
+            }
+        }
+    }
+
+    @Override
+    public void clear() {
+        memory.clear();
+        inMemory = 0;
+        for (Run run : runs) {
+            delete(run);
+        }
+        runs.clear();
+        onDisk = 0;
+        if (ownsDirectory && directory != null) {
+            deleteFile(directory);
+            directory = null;
+        }
+    }
+
+    @Override
+    public int size() {
+        return inMemory + onDisk;
+    }
+
+    /**
+     * Writes the least promising subproblems to a new run until at most half of
+     * the memory budget is used. When the most promising bucket is reached, only
+     * its oldest subproblems are spilled.
+     */
+    private void spill() {
+        final Path file = newRunFile();
+        final Run  run  = new Run(file);
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(file)))) {
+            while (inMemory > budget / 2 && memory.size() > 1) {
+                Map.Entry<Integer, ArrayDeque<SubProblem<T>>> low = memory.pollFirstEntry();
+                for (SubProblem<T> sub : low.getValue()) {
+                    write(sub, out);
+                }
+                run.add(low.getKey(), low.getValue().size());
+                inMemory -= low.getValue().size();
+            }
+            if (inMemory > budget / 2) {
+                // the subproblems are written from the most recent to the oldest one (as above)
+                final Map.Entry<Integer, ArrayDeque<SubProblem<T>>> top = memory.lastEntry();
+                final ArrayDeque<SubProblem<T>> bucket = top.getValue();
+                final int n = inMemory - budget / 2;
+                final ArrayDeque<SubProblem<T>> tail = new ArrayDeque<>(n);
+                for (int i = 0; i < n; i++) {
+                    tail.push(bucket.pollLast());
+                }
+                for (SubProblem<T> sub : tail) {
+                    write(sub, out);
+                }
+                run.add(top.getKey(), n);
+                inMemory -= n;
+                if (bucket.isEmpty()) {
+                    memory.pollLastEntry();
+                }
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        if (run.count == 0) {
+            deleteFile(file);
+        } else {
+            runs.add(run);
+            onDisk += run.count;
+        }
+    }
+    /** 
+     * Reads the given run (which has been removed from the runs) back into memory 
+     * and deletes it from disk. The subproblems which are read are not spilled again.
+     */
+    private void pageIn(final Run run) {
+        onDisk -= run.live;
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(run.file)))) {
+            for (int i = 0; i < run.count; i++) {
+                SubProblem<T> sub = read(in);
+                if (sub.getUpperBound() > run.pruned) {
+                    ArrayDeque<SubProblem<T>> bucket = memory.get(sub.getUpperBound());
+                    if (bucket == null) {
+                        bucket = new ArrayDeque<>();
+                        memory.put(sub.getUpperBound(), bucket);
+                    }
+                    // the subproblems of a run are older than the ones which stayed in memory
+                    bucket.addLast(sub);
+                    inMemory += 1;
+                }
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        delete(run);
+    }
+
+    /** Writes one subproblem to the given output */
+    private void write(final SubProblem<T> sub, final DataOutputStream out) throws IOException {
+        out.writeInt(sub.getUpperBound());
+        out.writeInt(sub.getValue());
+        // the path is written from the root down to the subproblem
+        DecisionPath path = sub.getPath();
+        final int[] vars  = new int[path.size()];
+        final int[] vals  = new int[path.size()];
+        for (int i = vars.length - 1; i >= 0; i--) {
+            vars[i] = path.lastVar();
+            vals[i] = path.lastVal();
+            path    = path.prefix();
+        }
+        out.writeInt(vars.length);
+        for (int i = 0; i < vars.length; i++) {
+            out.writeInt(vars[i]);
+            out.writeInt(vals[i]);
+        }
+        serializer.write(sub.getState(), out);
+    }
+    /** Reads one subproblem from the given input */
+    private SubProblem<T> read(final DataInputStream in) throws IOException {
+        final int ub     = in.readInt();
+        final int value  = in.readInt();
+        final int length = in.readInt();
+        DecisionPath path = DecisionPath.empty();
+        for (int i = 0; i < length; i++) {
+            final int var = in.readInt();
+            final int val = in.readInt();
+            path = path.with(var, val);
+        }
+        final T state = serializer.read(in);
+        return new SubProblem<>(state, value, ub, path);
+    }
+
+    /** @return the path of a new (not yet existing) run file */
+    private Path newRunFile() {
+        if (directory == null) {
+            directory = createTempDirectory();
+        }
+        try {
+            return Files.createTempFile(directory, "run", ".bin");
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+    /** Deletes the file of the given run */
+    private static void delete(final Run run) {
+        deleteFile(run.file);
+    }
+    /** Deletes the given file */
+    private static void deleteFile(final Path file) {
+        try {
+            Files.deleteIfExists(file);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+    /** @return a fresh temporary directory */
+    private static Path createTempDirectory() {
+        try {
+            return Files.createTempDirectory("ddo4j-frontier");
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /** 
+     * A file storing some subproblems which have been spilled to disk. The run 
+     * remembers how many subproblems it holds for each upper bound so that the
+     * frontier knows its exact size even after some of them have been pruned.
+     */
+    private static final class Run {
+        /** The file where the subproblems are stored */
+        final Path file;
+        /** The distinct upper bounds of the subproblems of this run (in ascending order) */
+        int[] ubs = new int[4];
+        /** The number of subproblems of the run having each of these upper bounds */
+        int[] counts = new int[4];
+        /** The number of distinct upper bounds */
+        int nbUbs = 0;
+        /** The number of subproblems written in this run */
+        int count = 0;
+        /** The number of subproblems of this run which have not been pruned */
+        int live = 0;
+        /** The highest lower bound this run has been pruned with */
+        int pruned = Integer.MIN_VALUE;
+
+        public Run(final Path file) {
+            this.file = file;
+        }
+        /** Records that some subproblems having a greater upper bound than all others have been written */
+        public void add(final int ub, final int n) {
+            if (nbUbs == ubs.length) {
+                ubs    = Arrays.copyOf(ubs,    2 * nbUbs);
+                counts = Arrays.copyOf(counts, 2 * nbUbs);
+            }
+            ubs[nbUbs]    = ub;
+            counts[nbUbs] = n;
+            nbUbs += 1;
+            count += n;
+            live  += n;
+        }
+        /** @return the highest upper bound among the subproblems of this run */
+        public int maxUb() {
+            return ubs[nbUbs - 1];
+        }
+        /** Stops counting the subproblems whose upper bound is not greater than lb */
+        public void prune(final int lb) {
+            pruned = Math.max(pruned, lb);
+            live   = 0;
+            for (int i = nbUbs - 1; i >= 0 && ubs[i] > pruned; i--) {
+                live += counts[i];
+            }
+        }
+    }
+}
@@ -0,0 +1,33 @@
+package be.uclouvain.ingi.aia.ddo4j.implem.frontier;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+
+/**
+ * A state serializer tells how the states of some problem are written to and
+ * read from a binary stream. It is used by the frontiers which save a portion
+ * of their subproblems to disk.
+ *
+ * # Note:
+ * Reading a state which has been written must yield a state which is equal to
+ * the original one (as per `equals()` and `hashCode()`).
+ */
+public interface StateSerializer<T> {
+    /**
+     * Writes a state to the given output
+     *
+     * @param state the state to write
+     * @param out the output where the state must be written
+     * @throws IOException when the state could not be written
+     */
+    void write(final T state, final DataOutput out) throws IOException;
+    /**
+     * Reads a state which was previously written with `write()`
+     *
+     * @param in the input from where the state must be read
+     * @return the state which has been read
+     * @throws IOException when the state could not be read
+     */
+    T read(final DataInput in) throws IOException;
+}
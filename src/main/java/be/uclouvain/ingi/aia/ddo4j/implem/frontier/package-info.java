@@ -12,5 +12,20 @@
  * additional conditions on the model. Indeed for two 
  * this implementation to be usable, the model must guaranteed that subproblems
  * having one same root state are equivalent (might not always be the case).
+ * 
+ * The BucketFrontier groups the subproblems by upper bound. It avoids most of 
+ * the comparisons performed by the heap based frontiers and discards all the
+ * subproblems that cannot improve the best known solution in one go.
+ * 
+ * The SpillingFrontier bounds the number of subproblems it keeps in memory. The
+ * least promising ones are written to disk (with a StateSerializer) and read 
+ * back when they become the most promising ones.
+ * 
+ * The ConcurrentNoDuplicateFrontier is a thread safe variant of the 
+ * NoDuplicateFrontier. It lets all the threads of the solver push their nodes
+ * concurrently (while still merging the nodes having the same state).
+ * 
+ * The DominanceFrontier decorates another frontier. It uses a DominanceChecker
+ * to discard the subproblems that are dominated by another one of the frontier.
  */
 package be.uclouvain.ingi.aia.ddo4j.implem.frontier;
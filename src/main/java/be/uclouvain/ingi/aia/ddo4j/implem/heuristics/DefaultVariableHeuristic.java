@@ -3,6 +3,7 @@ package be.uclouvain.ingi.aia.ddo4j.implem.heuristics;
 import java.util.Iterator;
 import java.util.Set;
 
+import be.uclouvain.ingi.aia.ddo4j.core.VarSet;
 import be.uclouvain.ingi.aia.ddo4j.heuristics.VariableHeuristic;
 
 /** 
@@ -13,7 +14,13 @@ public final class DefaultVariableHeuristic<T> implements VariableHeuristic<T> {
 
     @Override
     public Integer nextVariable(final Set<Integer> variables, final Iterator<T> states) {
-        return variables.iterator().next();
+        final Iterator<Integer> it = variables.iterator();
+        return it.hasNext() ? it.next() : null;
+    }
+    @Override
+    public Integer nextVariable(final VarSet variables, final Iterator<T> states) {
+        int var = variables.nextVar(0);
+        return var < 0 ? null : var;
     }
     
 }
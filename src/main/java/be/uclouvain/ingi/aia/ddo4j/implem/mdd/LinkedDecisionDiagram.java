@@ -1,138 +1,226 @@
 package be.uclouvain.ingi.aia.ddo4j.implem.mdd;
 
-import java.util.ArrayList;
-import java.util.Collections;
-import java.util.Comparator;
+import java.util.AbstractList;
+import java.util.Arrays;
 import java.util.HashMap;
-import java.util.HashSet;
 import java.util.Iterator;
-import java.util.List;
+import java.util.NoSuchElementException;
 import java.util.Optional;
 import java.util.Set;
-import java.util.Map.Entry;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.function.IntConsumer;
+import java.util.function.Function;
 
+import be.uclouvain.ingi.aia.ddo4j.core.Clustering;
 import be.uclouvain.ingi.aia.ddo4j.core.CompilationInput;
 import be.uclouvain.ingi.aia.ddo4j.core.CompilationType;
 import be.uclouvain.ingi.aia.ddo4j.core.Decision;
 import be.uclouvain.ingi.aia.ddo4j.core.DecisionDiagram;
+import be.uclouvain.ingi.aia.ddo4j.core.DecisionPath;
+import be.uclouvain.ingi.aia.ddo4j.core.DominanceChecker;
 import be.uclouvain.ingi.aia.ddo4j.core.Problem;
 import be.uclouvain.ingi.aia.ddo4j.core.Relaxation;
 import be.uclouvain.ingi.aia.ddo4j.core.SubProblem;
+import be.uclouvain.ingi.aia.ddo4j.core.TransitionConsumer;
+import be.uclouvain.ingi.aia.ddo4j.core.VarSet;
 import be.uclouvain.ingi.aia.ddo4j.heuristics.StateRanking;
 import be.uclouvain.ingi.aia.ddo4j.heuristics.VariableHeuristic;
+import be.uclouvain.ingi.aia.ddo4j.implem.utils.GenericArrays;
+import be.uclouvain.ingi.aia.ddo4j.implem.utils.Hashing;
 
 /**
- * This class implements the decision diagram as a linked structure. 
+ * This class implements the decision diagram as a linked structure.
+ *
+ * # Note:
+ * The nodes and edges of the diagram are not allocated as individual objects.
+ * Instead, they are identified by an integer index into a set of parallel
+ * primitive arrays (the arenas) which are reset -- not reallocated -- between
+ * two compilations. The edges entering a node are chained as a singly linked
+ * list threaded through the edge arena. This way, a diagram which is reused
+ * by one same thread to compile many subproblems generates almost no garbage
+ * once its arenas have grown to their steady state size.
+ *
+ * The paths of the subproblems and solutions derived from one compilation share
+ * their common prefixes: the path of each node is built (at most once) by
+ * extending the path of the origin of its best edge.
+ *
+ * The rough upper bound of a node is computed as soon as the node is created.
+ * A transition leading to a new node whose rough upper bound cannot improve the
+ * best known lower bound is simply discarded: such a node never enters the
+ * next layer. The best known lower bound is read from the compilation input
+ * before each layer is expanded, so that the improvements that are found by
+ * other threads while the compilation is ongoing cut the work immediately.
+ *
+ * When the compilation input provides a dominance relation, the nodes of each
+ * layer which are dominated by another node of that layer (having a longest path
+ * which is at least as long) are discarded before the layer is shrunk and expanded.
+ * In a relaxed diagram, this only happens down to the first layer being relaxed.
+ *
+ * When the compilation input provides a clustering, the nodes of an over wide
+ * layer of a relaxed diagram which do not fit in that layer are partitioned in
+ * several clusters which are merged separately (instead of being all merged into
+ * one single node).
+ *
+ * # Parallel expansion:
+ * When it is given a fork/join pool, the diagram expands its wide layers in
+ * parallel. This happens in three phases:
+ *
+ * 1. the layer is cut in chunks whose transitions are computed concurrently
+ *    and buffered (each transition is assigned to a partition based on the
+ *    hash of the state it reaches, and each chunk sorts its transitions by
+ *    partition);
+ * 2. each partition deduplicates the states assigned to it, computes their
+ *    rough upper bound and tells which transitions create a node, which ones
+ *    only add an edge and which ones are discarded (concurrently with the other
+ *    partitions);
+ * 3. the nodes and edges are created: the chunks allocate their nodes and
+ *    edges concurrently (in the order in which they would have been allocated
+ *    by a sequential expansion), then the partitions link the edges to the
+ *    nodes of their states concurrently.
+ *
+ * Hence, the diagram which is compiled is exactly the same one as when the
+ * expansion is sequential. This mode is meant to keep all cores busy when the
+ * solver has only very few subproblems to work on (typically, at the root).
+ * It requires that the problem and relaxation be safe for concurrent use, which
+ * is already the case of any problem solved by the `ParallelSolver`.
  */
 public final class LinkedDecisionDiagram<T> implements DecisionDiagram<T> {
+    /** The index used to denote the absence of a node or edge */
+    private static final int NIL = -1;
+    /** The marker telling that no suffix has been computed for a node */
+    private static final int NO_SUFFIX = Integer.MIN_VALUE;
+    /** The initial capacity of the arenas */
+    private static final int INITIAL_CAPACITY = 64;
+    /** The size of the (lossy) cache of decision objects. This must be a power of two */
+    private static final int DECISION_CACHE_SIZE = 64;
+    /** The minimum number of nodes of a chunk when a layer is expanded in parallel */
+    private static final int MIN_CHUNK_SIZE = 16;
+    /** The minimum width of a layer for it to be expanded in parallel */
+    private static final int MIN_PARALLEL_WIDTH = 4 * MIN_CHUNK_SIZE;
+    /** A buffered transition which is discarded */
+    private static final byte DISCARDED = 0;
+    /** A buffered transition which only adds an edge to an existing node */
+    private static final byte CONNECTED = 1;
+    /** A buffered transition which creates a node (and an edge) */
+    private static final byte CREATED = 2;
+    /** The maximum number of nodes a node is compared with when looking for a dominating node */
+    private static final int MAX_DOMINANCE_CHECKS = 64;
+
+    /** The pool used to expand the wide layers in parallel (null when the expansion is sequential) */
+    private final ForkJoinPool pool;
+    /** The buffered transitions of each chunk of the layer being expanded in parallel */
+    private Chunk[] chunks = GenericArrays.newArray(Chunk.class, 0);
+    /** The partitions of the next layer when it is expanded in parallel */
+    private Partition[] partitions = GenericArrays.newArray(Partition.class, 0);
+
     /** The list of decisions that have led to the root of this DD */
-    private Set<Decision> pathToRoot = Collections.emptySet();
+    private DecisionPath pathToRoot = DecisionPath.empty();
+    /** The upper bound of the residual problem at the root of this DD */
+    private int rootUB = Integer.MAX_VALUE;
     /** All the nodes from the previous layer */
-    private HashMap<Node, NodeSubProblem<T>> prevLayer = new HashMap<>();
+    private Layer<T> prevLayer = new Layer<>();
     /** All the (subproblems) nodes from the previous layer -- That is, all nodes that will be expanded */
-    private List<NodeSubProblem<T>> currentLayer = new ArrayList<>();
+    private Layer<T> currentLayer = new Layer<>();
     /** All the nodes from the next layer */
-    private HashMap<T, Node> nextLayer = new HashMap<T, Node>();
+    private final NodeIndex<T> nextLayer = new NodeIndex<>();
     /** All the nodes from the last exact layer cutset */
-    private List<NodeSubProblem<T>> lel = new ArrayList<>();
+    private final Layer<T> lel = new Layer<>();
     /** The best node in the terminal layer (if it exists at all) */
-    private Node best = null;
-
-    // --- UTILITY CLASSES -----------------------------------------------
-    /**
-     * This is an atomic node from the decision diagram. Per-se, it does not 
-     * hold much interpretable information.
-     */
-    private static final class Node {
-        /** The length of the longest path to this node */
-        private int value;
-        /** The length of the longest suffix of this node (bottom part of a local bound) */
-        private Integer suffix;
-        /** The edge terminating the longest path to this node */
-        private Edge best;
-        /** The list of edges leading to this node */
-        private List<Edge> edges;
-
-        /** Creates a new node */
-        public Node(final int value) {
-            this.value  = value;
-            this.suffix = null;
-            this.best   = null;
-            this.edges  = new ArrayList<>();
-        }
-    }
-    /**
-     * This is an edge that connects two nodes from the decision diagram
-     */
-    private static final class Edge {
-        /** The source node of this arc */
-        private Node origin;
-        /** The decision that was made when traversing this arc */
-        private Decision decision;
-        /** The weight of the arc */
-        private int weight;
-
-        /**
-         * Creates a new edge between pairs of nodes
-         * 
-         * @param src the source node
-         * @param dst the destination node
-         * @param d the decision that was made when traversing this edge
-         * @param w the weight of the edge
-         */
-        public Edge(final Node src, final Decision d, final int w) {
-            this.origin = src;
-            this.decision = d;
-            this.weight = w;
-        }
-    }
-    /**
-     * This class encapsulates the association of a node with its state and 
-     * associated rough upper bound.
-     * 
-     * This class essentially serves two purposes: 
-     * 
-     * - associate a node with a state during the compilation (and allow to 
-     *   eagerly forget about the given state, which allows to save substantial
-     *   amounts of RAM while compiling the DD).
-     * 
-     * - turn an MDD node from the exact cutset into a subproblem which is used
-     *   by the API.
-     */
-    private static final class NodeSubProblem<T> {
-        /** The state associated to this node */
-        private final T state;
-        /** The actual node from the graph of decision diagrams */
-        private final Node node;
-        /** The upper bound associated with this node (if state were the root) */
-        private int ub;
+    private int best = NIL;
+    /** The ranking used to order the nodes of a layer during the current compilation */
+    private StateRanking<T> ranking = null;
+    /** The set of variables that have not been assigned yet */
+    private final VarSet variables = new VarSet();
+    /** The relaxation used during the current compilation */
+    private Relaxation<T> relax = null;
+    /** The best known lower bound at the time when the current layer is expanded */
+    private int bestLB = Integer.MIN_VALUE;
+    /** True iff the last compilation was cancelled before it was complete */
+    private boolean cancelled = false;
 
-        /** Creates a new instance */
-        public NodeSubProblem(final T state, final int ub, final Node node){
-            this.state = state;
-            this.ub    = ub;
-            this.node  = node;
-        }
+    // --- STATISTICS ----------------------------------------------------
+    /** The number of layers expanded during the last compilation */
+    private int nbLayers = 0;
+    /** The sum of the widths of the layers expanded during the last compilation */
+    private long totalWidth = 0;
+    /** The width of the widest layer (before it was shrunk) met during the last compilation */
+    private int peakWidth = 0;
+    /** The number of nodes merged by the relaxations of the last compilation */
+    private int nbMerged = 0;
 
-        /** @return Turns this association into an actual subproblem */
-        public SubProblem<T> toSubProblem(final Set<Decision> pathToRoot) {
-            HashSet<Decision> path = new HashSet<>();
-            path.addAll(pathToRoot);
+    // --- NODE ARENA ----------------------------------------------------
+    /** The number of nodes that have been allocated in the arena */
+    private int nbNodes = 0;
+    /** The length of the longest path to each node */
+    private int[] nodeValue = new int[INITIAL_CAPACITY];
+    /** The length of the longest suffix of each node (bottom part of a local bound) */
+    private int[] nodeSuffix = new int[INITIAL_CAPACITY];
+    /** The rough upper bound on the longest suffix of each node (as per `fastUpperBound()`) */
+    private int[] nodeFub = new int[INITIAL_CAPACITY];
+    /** The edge terminating the longest path to each node */
+    private int[] nodeBest = new int[INITIAL_CAPACITY];
+    /** The first edge of the list of edges leading to each node */
+    private int[] nodeInbound = new int[INITIAL_CAPACITY];
+    /** The position of each node in the layer it belongs to */
+    private int[] nodeSlot = new int[INITIAL_CAPACITY];
+    /** The (lazily computed) path from the root of the problem to each node */
+    private DecisionPath[] nodePath = new DecisionPath[INITIAL_CAPACITY];
 
-            Edge e = node.best;
-            while (e != null) {
-                path.add(e.decision);
-                e = e.origin == null ? null : e.origin.best;
-            }
+    // --- EDGE ARENA ----------------------------------------------------
+    /** The number of edges that have been allocated in the arena */
+    private int nbEdges = 0;
+    /** The source node of each arc */
+    private int[] edgeOrigin = new int[INITIAL_CAPACITY];
+    /** The decision that was made when traversing each arc (packed variable and value) */
+    private long[] edgeDecision = new long[INITIAL_CAPACITY];
+    /** The weight of each arc */
+    private int[] edgeWeight = new int[INITIAL_CAPACITY];
+    /** The next edge in the list of edges leading to the same destination */
+    private int[] edgeNext = new int[INITIAL_CAPACITY];
 
-            int locb = Integer.MIN_VALUE;
-            if (node.suffix != null) {
-                locb = saturatedAdd(node.value, node.suffix);
-            }
-            ub = Math.min(ub, locb);
+    /** A lossy cache of decisions which avoids allocating one decision per arc */
+    private final Decision[] decisions = new Decision[DECISION_CACHE_SIZE];
+    /** The nodes whose path is yet to be computed when walking up a best path */
+    private int[] pending = new int[INITIAL_CAPACITY];
+    /** A reusable iterator which is used to pass the states to merge to the relaxation */
+    private final LayerStateIterator<T> mergedStates = new LayerStateIterator<>();
+    /** A reusable view on the slice of the current layer whose states are expanded */
+    private final LayerSlice<T> slice = new LayerSlice<>();
+    /** A reusable consumer which branches on each transition it is fed with */
+    private final Brancher brancher = new Brancher();
+    /** 
+     * The first node (position in the current layer) having each dominance key, or
+     * the group of the nodes having each cluster key 
+     */
+    private final HashMap<Object, Integer> groups = new HashMap<>();
+    /** The next node having the same dominance key as each node of the current layer */
+    private int[] groupNext = new int[INITIAL_CAPACITY];
+    /** Tells whether each node of the current layer is to be kept */
+    private boolean[] keep = new boolean[INITIAL_CAPACITY];
+    /** The nodes of one dominance group, sorted by value (the value in the high bits, the position in the low bits) */
+    private long[] byValue = new long[INITIAL_CAPACITY];
+    /** The nodes of one dominance group which have been kept so far (in descending value order) */
+    private int[] kept = new int[INITIAL_CAPACITY];
+    /** The position past the last node of each cluster of the layer being relaxed */
+    private int[] clusterEnd = new int[1];
+    /** The group (of nodes having the same cluster key) of each node of the layer being relaxed */
+    private int[] clusterOf = new int[INITIAL_CAPACITY];
+    /** The number of nodes of each group */
+    private int[] groupSize = new int[INITIAL_CAPACITY];
+    /** The cluster assigned to each group */
+    private int[] groupCluster = new int[INITIAL_CAPACITY];
 
-            return new SubProblem<>(state, node.value, ub, path);
-        }
+    /** Creates a decision diagram whose layers are expanded sequentially */
+    public LinkedDecisionDiagram() {
+        this(null);
+    }
+    /** 
+     * Creates a decision diagram whose wide layers are expanded in parallel
+     * @param pool the pool of threads used to expand the layers (null means sequential)
+     */
+    public LinkedDecisionDiagram(final ForkJoinPool pool) {
+        this.pool = pool;
     }
 
     @Override
@@ -143,36 +231,43 @@ public final class LinkedDecisionDiagram<T> implements DecisionDiagram<T> {
         // initialize the compilation
         final int maxWidth           = input.getMaxWidth();
         final SubProblem<T> residual = input.getResidual();
-        final Node root              = new Node(residual.getValue());
+        final Problem<T> problem     = input.getProblem();
+        final Relaxation<T> relax    = input.getRelaxation();
+        final VarSet variables       = varSet(input);
+        final int root               = newNode(residual.getValue());
+        this.relax                   = relax;
         this.pathToRoot              = residual.getPath();
+        this.rootUB                  = residual.getUpperBound();
+        this.nodeFub[root]           = relax.fastUpperBound(residual.getState(), variables);
         this.nextLayer.put(residual.getState(), root);
 
         // proceed to compilation
-        final Problem<T> problem       = input.getProblem();
-        final Relaxation<T> relax      = input.getRelaxation();
         final VariableHeuristic<T> var = input.getVariableHeuristic();
-        final NodeSubroblemComparator<T> ranking = new NodeSubroblemComparator<>(input.getStateRanking());
-
-        final Set<Integer> variables = varSet(input);
+        this.ranking                   = input.getStateRanking();
         //
         int depth = 0;
 
         while (!variables.isEmpty()) {
-            Integer nextvar = var.nextVariable(variables, nextLayer.keySet().iterator());
+            if (input.isCancelled()) {
+                // give up: the diagram is left empty (neither exact nor with any cutset)
+                clear();
+                this.cancelled = true;
+                return;
+            }
+            Integer nextvar = var.nextVariable(variables, nextLayer.states());
             // change the layer focus: what was previously the next layer is now
             // becoming the current layer
-            this.prevLayer.clear();
-            for (NodeSubProblem<T> n : this.currentLayer) {
-                this.prevLayer.put(n.node, n);
-            }
+            Layer<T> tmp      = this.prevLayer;
+            this.prevLayer    = this.currentLayer;
+            this.currentLayer = tmp;
             this.currentLayer.clear();
 
-            for (Entry<T, Node> e : this.nextLayer.entrySet()) {
-                T state   = e.getKey();
-                Node node = e.getValue();
+            for (int i = 0; i < this.nextLayer.size(); i++) {
+                T state  = nextLayer.state(i);
+                int node = nextLayer.node(i);
 
-                int rub  = saturatedAdd(node.value, input.getRelaxation().fastUpperBound(state, variables));
-                this.currentLayer.add(new NodeSubProblem<>(state, rub, node));
+                int rub  = saturatedAdd(nodeValue[node], nodeFub[node]);
+                this.currentLayer.add(node, state, rub);
             }
             this.nextLayer.clear();
 
@@ -186,57 +281,75 @@ public final class LinkedDecisionDiagram<T> implements DecisionDiagram<T> {
                 clear();
                 return;
             } else {
-                variables.remove(nextvar);
+                variables.remove(nextvar.intValue());
             }
 
+            // in a relaxed dd, the dominated nodes are only removed while the layers are 
+            // exact: a merged node could otherwise steal the bound of a node which belongs 
+            // to the subproblem of another node of the cutset
+            final boolean exact = lel.isEmpty() || input.getCompilationType() == CompilationType.Restricted;
+            if (input.getDominance() != null && exact) {
+                removeDominatedStates(input.getDominance());
+            }
+            peakWidth = Math.max(peakWidth, currentLayer.size());
 
-            // If the current layer is too large, we need to shrink it down. 
+            // If the current layer is too large, we need to shrink it down.
             // Whether this shrinking down means that we want to perform a restriction
-            // or a relaxation depends on the type of compilation which has been 
-            // requested from this decision diagram  
+            // or a relaxation depends on the type of compilation which has been
+            // requested from this decision diagram
             //
             // IMPORTANT NOTE:
             // The check is on depth 2 because the method maybeSaveLel() saves the parent
             // of the current layer if a LEL is to be remembered. In order to be sure
-            // to make progress, we must be certain to develop AT LEAST one layer per 
+            // to make progress, we must be certain to develop AT LEAST one layer per
             // mdd compiled otherwise the LEL is going to be the root of this MDD (and
             // we would be stuck in an infinite loop)
             if (depth >= 2 && currentLayer.size() > maxWidth) {
                 switch (input.getCompilationType()) {
                     case Restricted:
                         maybeSaveLel();
-                        restrict(maxWidth, ranking);
+                        restrict(maxWidth);
                         break;
                     case Relaxed:
                         maybeSaveLel();
-                        relax(maxWidth, ranking, relax);
+                        relax(maxWidth, relax, input.getClustering());
                         break;
-                    case Exact: 
+                    case Exact:
                         /* nothing to to */
                         break;
                 }
             }
 
-            for (NodeSubProblem<T> n : currentLayer) {
-                if (n.ub <= input.getBestLB()) {
-                    continue;
-                } else {
-                    final Iterator<Integer> domain = problem.domain(n.state, nextvar);
-                    while (domain.hasNext()) {
-                        final int val           = domain.next();
-                        final Decision decision = new Decision(nextvar, val);
+            // the nodes which cannot improve the best known solution need not be expanded
+            this.bestLB = input.getBestLB();
+            currentLayer.pruneByBound(bestLB);
 
-                        branchOn(n, decision, problem);
-                    }
-                }
+            nbLayers   += 1;
+            totalWidth += currentLayer.size();
+
+            // remember the position of each node so that its state can be retrieved
+            // when the layer it belongs to has become the previous layer
+            for (int i = 0; i < currentLayer.size(); i++) {
+                nodeSlot[currentLayer.node(i)] = i;
+            }
+
+            // expand all the nodes of the layer in one batch
+            if (pool != null && currentLayer.size() >= MIN_PARALLEL_WIDTH) {
+                expandInParallel(problem, nextvar);
+            } else {
+                problem.transitions(
+                    slice.reset(currentLayer, 0, currentLayer.size()), 
+                    nextvar, 
+                    brancher.reset(0, nextvar));
             }
 
             depth += 1;
         }
 
         // finalize: find best
-        for (Node n : nextLayer.values()) {
-            if (best == null || n.value > best.value) {
+        for (int i = 0; i < nextLayer.size(); i++) {
+            int n = nextLayer.node(i);
+            if (best == NIL || nodeValue[n] > nodeValue[best]) {
                 best = n;
             }
         }
@@ -247,192 +360,711 @@ public final class LinkedDecisionDiagram<T> implements DecisionDiagram<T> {
         }
     }
 
+    /** @return the number of layers which have been expanded during the last compilation */
+    public int nbLayers() {
+        return nbLayers;
+    }
+    /** @return the sum of the widths of the layers expanded during the last compilation */
+    public long totalWidth() {
+        return totalWidth;
+    }
+    /** @return the width of the widest layer (before it was shrunk) met during the last compilation */
+    public int peakWidth() {
+        return peakWidth;
+    }
+    /** @return the number of nodes which have been merged by the relaxations of the last compilation */
+    public int nbMerged() {
+        return nbMerged;
+    }
+
+    /** @return true iff the last compilation was cancelled before it was complete */
+    public boolean isCancelled() {
+        return cancelled;
+    }
+
     @Override
     public boolean isExact() {
-        return lel.isEmpty();
+        return !cancelled && lel.isEmpty();
     }
 
     @Override
     public Optional<Integer> bestValue() {
-        if (best == null) {
+        if (best == NIL) {
             return Optional.empty();
         } else {
-            return Optional.of(best.value);
+            return Optional.of(nodeValue[best]);
         }
     }
 
     @Override
     public Optional<Set<Decision>> bestSolution() {
-        if (best == null) {
+        if (best == NIL) {
             return Optional.empty();
         } else {
-            Set<Decision> sol = new HashSet<>();
-            sol.addAll(pathToRoot);
-            
-            Edge eb = best.best;
-            while (eb != null) {
-                sol.add(eb.decision);
-                eb = eb.origin == null ? null : eb.origin.best;
-            }
-            return Optional.of(sol);
+            return Optional.of(pathTo(best));
         }
     }
 
     @Override
     public Iterator<SubProblem<T>> exactCutset() {
-        return new NodeSubProblemsAsSubProblemsIterator<>(lel.iterator(), pathToRoot);
+        return new LelAsSubProblemsIterator();
     }
-    
+
     // --- UTILITY METHODS -----------------------------------------------
-    private Set<Integer> varSet(final CompilationInput<T> input) {
-        final HashSet<Integer> set = new HashSet<>();
-        for (int i = 0; i < input.getProblem().nbVars(); i++) {
-            set.add(i);
-        }
+    private VarSet varSet(final CompilationInput<T> input) {
+        variables.fill(input.getProblem().nbVars());
 
-        for (Decision d : input.getResidual().getPath()) {
-            set.remove(d.var());
+        DecisionPath path = input.getResidual().getPath();
+        while (!path.isEmpty()) {
+            variables.remove(path.lastVar());
+            path = path.prefix();
         }
-        return set;
+        return variables;
     }
     /** Reset the state of this MDD. This way it can easily be reused */
     private void clear() {
-        pathToRoot = Collections.emptySet();
+        Arrays.fill(nodePath, 0, nbNodes, null);
+        pathToRoot = DecisionPath.empty();
         prevLayer.clear();
         currentLayer.clear();
         nextLayer.clear();
         lel.clear();
-        best = null;
+        best    = NIL;
+        ranking = null;
+        relax   = null;
+        bestLB  = Integer.MIN_VALUE;
+        nbNodes = 0;
+        nbEdges = 0;
+        //
+        nbLayers   = 0;
+        totalWidth = 0;
+        peakWidth  = 0;
+        nbMerged   = 0;
+        cancelled  = false;
+    }
+    /**
+     * Removes the nodes of the current layer that are dominated by another node
+     * of that layer. Only the nodes having the same dominance key are compared.
+     *
+     * # Note:
+     * The nodes of each group are visited by decreasing value, and each node is
+     * only compared with the (at most MAX_DOMINANCE_CHECKS) nodes of its group
+     * which were most recently kept. Hence, removing the dominated nodes of a
+     * layer of width w costs O(w log w + w * MAX_DOMINANCE_CHECKS) comparisons
+     * (instead of O(w^2)) even when all the nodes of the layer share the same key.
+     * A dominated node might thus be kept, which is safe: it is merely explored.
+     *
+     * @param dominance the dominance relation among the states
+     */
+    private <K> void removeDominatedStates(final DominanceChecker<T, K> dominance) {
+        final int size = currentLayer.size();
+        if (groupNext.length < size) {
+            groupNext = new int[size];
+            keep      = new boolean[size];
+            byValue   = new long[size];
+            kept      = new int[size];
+        }
+        // chain the nodes having the same key
+        groups.clear();
+        for (int i = size - 1; i >= 0; i--) {
+            Integer head = groups.put(dominance.dominanceKey(currentLayer.state(i)), i);
+            groupNext[i] = head == null ? NIL : head;
+            keep[i]      = true;
+        }
+        // compare each node of a group with the most valuable nodes of the group
+        for (int head : groups.values()) {
+            int n = 0;
+            for (int i = head; i != NIL; i = groupNext[i]) {
+                byValue[n++] = ((long) nodeValue[currentLayer.node(i)] << 32) | i;
+            }
+            Arrays.sort(byValue, 0, n);
+
+            int nbKept = 0;
+            for (int x = n - 1; x >= 0; x--) {
+                final int i    = (int) byValue[x];
+                final int stop = Math.max(0, nbKept - MAX_DOMINANCE_CHECKS);
+                for (int y = nbKept - 1; y >= stop && keep[i]; y--) {
+                    final int j = kept[y];
+                    if (dominates(dominance, j, i)) {
+                        keep[i] = false;
+                    } else if (dominates(dominance, i, j)) {
+                        // j has the same value as i (it would dominate i otherwise)
+                        keep[j] = false;
+                        System.arraycopy(kept, y + 1, kept, y, nbKept - y - 1);
+                        nbKept -= 1;
+                    }
+                }
+                if (keep[i]) {
+                    kept[nbKept++] = i;
+                }
+            }
+        }
+        groups.clear();
+        currentLayer.retain(keep);
+    }
+    /** @return true iff the node at position a of the current layer dominates the one at position b */
+    private <K> boolean dominates(final DominanceChecker<T, K> dominance, final int a, final int b) {
+        return nodeValue[currentLayer.node(a)] >= nodeValue[currentLayer.node(b)]
+            && dominance.dominates(currentLayer.state(a), currentLayer.state(b));
     }
     /** Saves the last exact layer cutset if needed */
     private void maybeSaveLel() {
         if (lel.isEmpty()) {
-            lel.addAll(prevLayer.values());
+            for (int i = 0; i < prevLayer.size(); i++) {
+                lel.add(prevLayer.node(i), prevLayer.state(i), prevLayer.ub(i));
+            }
         }
     }
     /**
-     * Performs a restriction of the current layer. 
-     * 
+     * Performs a restriction of the current layer.
+     *
      * @param maxWidth the maximum tolerated layer width
-     * @param ranking a ranking that orders the nodes from the most promising (greatest)
-     *  to the least promising (lowest) 
      */
-    private void restrict(final int maxWidth, final NodeSubroblemComparator<T> ranking) {
-        this.currentLayer.sort(ranking.reversed());
-        this.currentLayer.subList(maxWidth, this.currentLayer.size()).clear(); // truncate
+    private void restrict(final int maxWidth) {
+        selectDescending(currentLayer, 0, currentLayer.size() - 1, maxWidth);
+        currentLayer.truncate(maxWidth);
     }
     /**
-     * Performs a restriction of the current layer. 
-     * 
+     * Performs a relaxation of the current layer. The most promising nodes are kept
+     * as they are while the others are partitioned into clusters (only one cluster
+     * unless a clustering is given). The nodes of each cluster are merged together.
+     *
      * @param maxWidth the maximum tolerated layer width
-     * @param ranking a ranking that orders the nodes from the most promising (greatest)
-     *  to the least promising (lowest) 
      * @param relax the relaxation operators which we will use to merge nodes
+     * @param clustering how the nodes are partitioned into clusters (may be null)
      */
-    private void relax(final int maxWidth, final NodeSubroblemComparator<T> ranking, final Relaxation<T> relax) {
-        this.currentLayer.sort(ranking.reversed());
+    private void relax(final int maxWidth, final Relaxation<T> relax, final Clustering<T> clustering) {
+        final int size     = currentLayer.size();
+        final int clusters = clustering == null ? 1 : Math.min(clustering.getNbClusters(), maxWidth);
+        final int keep     = maxWidth - clusters;
+        selectDescending(currentLayer, 0, size - 1, keep);
+        nbMerged += size - keep;
+        if (clusterEnd.length < clusters) {
+            clusterEnd = new int[clusters];
+        }
+
+        int nbClusters;
+        if (clusters == 1) {
+            nbClusters    = 1;
+            clusterEnd[0] = size;
+        } else if (clustering.getKey() == null) {
+            nbClusters = clusterByRanking(keep, size, clusters);
+        } else {
+            nbClusters = clusterByKey(keep, size, clusters, clustering.getKey());
+        }
 
-        final List<NodeSubProblem<T>> keep  = this.currentLayer.subList(0, maxWidth-1);
-        final List<NodeSubProblem<T>> merge = this.currentLayer.subList(maxWidth-1, currentLayer.size());
-        final T merged = relax.mergeStates(new NodeSubProblemsAsStateIterator<>(merge.iterator()));
+        int width = keep;
+        int from  = keep;
+        for (int c = 0; c < nbClusters; c++) {
+            width = merge(relax, from, clusterEnd[c], width);
+            from  = clusterEnd[c];
+        }
+        // delete the nodes that have been merged
+        currentLayer.truncate(width);
+    }
+    /**
+     * Merges the nodes at positions [from, to) of the current layer into one node.
+     * When one of the first `width` nodes of the layer has the same state as the 
+     * merged node, the nodes are merged into that one. Otherwise, a fresh node is
+     * created and stored at position `width` of the layer (which must not be past
+     * `from`).
+     *
+     * @return the number of nodes at the front of the layer once the merge is done
+     */
+    private int merge(final Relaxation<T> relax, final int from, final int to, final int width) {
+        final T merged = relax.mergeStates(mergedStates.reset(currentLayer, from, to));
 
         // is there another state in the kept partition having the same state as the merged state ?
-        NodeSubProblem<T> node = null;
-        boolean fresh = true;
-        for (NodeSubProblem<T> n : keep) {
-            if (n.state.equals(merged)) {
-                node = n;
-                fresh = false;
+        int slot = NIL;
+        for (int i = 0; i < width; i++) {
+            if (currentLayer.state(i).equals(merged)) {
+                slot = i;
                 break;
             }
         }
-        if (node == null) {
-            node = new NodeSubProblem<>(merged, Integer.MIN_VALUE, new Node(Integer.MIN_VALUE));
-        }
+        final boolean fresh = slot == NIL;
+        final int node      = fresh ? newNode(Integer.MIN_VALUE) : currentLayer.node(slot);
+        int ub              = fresh ? Integer.MIN_VALUE : currentLayer.ub(slot);
 
         // redirect and relax all arcs entering the merged node
-        for (NodeSubProblem<T> drop : merge) {
-            node.ub = Math.max(node.ub, drop.ub);
-            
-            for (Edge e : drop.node.edges) {
-                int rcost = relax.relaxEdge(prevLayer.get(e.origin).state, drop.state, merged, e.decision, e.weight);
-
-                int value = saturatedAdd(e.origin.value, rcost);
-                e.weight  = rcost;
-
-                node.node.edges.add(e);
-                if (value > node.node.value) {
-                    node.node.value = value;
-                    node.node.best  = e;
+        for (int i = from; i < to; i++) {
+            final T dropState = currentLayer.state(i);
+            ub = Math.max(ub, currentLayer.ub(i));
+
+            int e = nodeInbound[currentLayer.node(i)];
+            while (e != NIL) {
+                final int next   = edgeNext[e];
+                final int origin = edgeOrigin[e];
+                final T   src    = prevLayer.state(nodeSlot[origin]);
+                final int rcost  = relax.relaxEdge(src, dropState, merged, decision(edgeDecision[e]), edgeWeight[e]);
+
+                int value     = saturatedAdd(nodeValue[origin], rcost);
+                edgeWeight[e] = rcost;
+
+                edgeNext[e]       = nodeInbound[node];
+                nodeInbound[node] = e;
+                if (value > nodeValue[node]) {
+                    nodeValue[node] = value;
+                    nodeBest[node]  = e;
                 }
+                e = next;
             }
         }
-        
-        // delete the nodes that have been merged
-        merge.clear();
-        // append the newly merged node if needed
+
         if (fresh) {
-            currentLayer.add(node);
+            currentLayer.set(width, node, merged, ub);
+            return width + 1;
+        } else {
+            currentLayer.setUb(slot, ub);
+            return width;
+        }
+    }
+    /**
+     * Partitions the nodes at positions [keep, size) of the current layer into 
+     * clusters of (almost) equal sizes gathering nodes which are about equally
+     * promising. Each cluster occupies a contiguous range of the layer, and the
+     * end of the c-th range is stored in `clusterEnd[c]`.
+     *
+     * @return the number of clusters
+     */
+    private int clusterByRanking(final int keep, final int size, final int clusters) {
+        final int n = size - keep;
+        int from    = keep;
+        for (int c = 0; c < clusters; c++) {
+            final int length = n / clusters + (c < n % clusters ? 1 : 0);
+            selectDescending(currentLayer, from, size - 1, length);
+            from         += length;
+            clusterEnd[c] = from;
+        }
+        return clusters;
+    }
+    /**
+     * Partitions the nodes at positions [keep, size) of the current layer into
+     * clusters gathering the nodes whose states have the same key. When there are
+     * more distinct keys than clusters, the largest groups of nodes get a cluster
+     * of their own and all the others share the last one. Each cluster occupies a
+     * contiguous range of the layer, and the end of the c-th range is stored in 
+     * `clusterEnd[c]`.
+     *
+     * @return the number of clusters
+     */
+    private int clusterByKey(final int keep, final int size, final int clusters, final Function<? super T, ?> key) {
+        if (clusterOf.length < size) {
+            clusterOf = new int[size];
+        }
+        // tell the groups of nodes having the same key apart
+        groups.clear();
+        for (int i = keep; i < size; i++) {
+            final Object k = key.apply(currentLayer.state(i));
+            Integer group  = groups.get(k);
+            if (group == null) {
+                group = groups.size();
+                groups.put(k, group);
+                if (group == groupSize.length) {
+                    groupSize    = Arrays.copyOf(groupSize,    2 * group);
+                    groupCluster = Arrays.copyOf(groupCluster, 2 * group);
+                }
+                groupSize[group] = 0;
+            }
+            groupSize[group] += 1;
+            clusterOf[i]      = group;
+        }
+        final int nbGroups = groups.size();
+        groups.clear();
+
+        // assign a cluster to each group
+        final int nbClusters = Math.min(nbGroups, clusters);
+        if (nbGroups <= clusters) {
+            for (int g = 0; g < nbGroups; g++) {
+                groupCluster[g] = g;
+            }
+        } else {
+            Arrays.fill(groupCluster, 0, nbGroups, clusters - 1);
+            for (int c = 0; c < clusters - 1; c++) {
+                int largest = NIL;
+                for (int g = 0; g < nbGroups; g++) {
+                    if (groupCluster[g] == clusters - 1 && (largest == NIL || groupSize[g] > groupSize[largest])) {
+                        largest = g;
+                    }
+                }
+                groupCluster[largest] = c;
+            }
+        }
+
+        // make the nodes of each cluster contiguous
+        int end = keep;
+        for (int c = 0; c < nbClusters; c++) {
+            for (int i = end; i < size; i++) {
+                if (groupCluster[clusterOf[i]] == c) {
+                    currentLayer.swap(i, end);
+                    final int tmp  = clusterOf[i];
+                    clusterOf[i]   = clusterOf[end];
+                    clusterOf[end] = tmp;
+                    end += 1;
+                }
+            }
+            clusterEnd[c] = end;
         }
+        return nbClusters;
     }
 
     /**
-     * This method performs the branching from the subproblem rooted in "node", making the given decision
-     * and behaving as per the problem definition.
-     * 
-     * @param node the origin of the transition
-     * @param decision the decision being made
-     * @param problem the problem that defines the transition and transition cost functions
+     * This method records a transition from the subproblem rooted in the node at
+     * the given slot of the current layer, as it was computed by the problem.
+     *
+     * When the transition leads to a state which is not yet part of the next layer,
+     * the rough upper bound of that state is computed right away. The transition is
+     * discarded if it cannot lead to a solution better than the best known one.
+     *
+     * @param slot the position of the origin of the transition in the current layer
+     * @param var the variable which is being assigned
+     * @param val the value assigned to the variable
+     * @param state the state reached by the transition
+     * @param cost the cost of the transition
      */
-    private void branchOn(final NodeSubProblem<T> node, final Decision decision, final Problem<T> problem) {
-        T state  = problem.transition(node.state, decision);
-        int cost = problem.transitionCost(node.state, decision);
-        int value= saturatedAdd(node.node.value, cost);
-
-        Node n   = nextLayer.get(state);
-        if (n == null) {
-            n = new Node(value);
+    private void branchOn(final int slot, final int var, final int val, final T state, final int cost) {
+        final int origin = currentLayer.node(slot);
+        int value        = saturatedAdd(nodeValue[origin], cost);
+
+        int n    = nextLayer.get(state);
+        if (n == NIL) {
+            int fub = relax.fastUpperBound(state, variables);
+            if (saturatedAdd(value, fub) <= bestLB) {
+                return;
+            }
+            n = newNode(value);
+            nodeFub[n] = fub;
             nextLayer.put(state, n);
         }
+        connect(origin, n, pack(var, val), cost, value);
+    }
+    /**
+     * Adds an edge between two nodes and updates the longest path to the destination
+     *
+     * @param origin the source node of the edge
+     * @param n the destination node of the edge
+     * @param decision the (packed) decision that was made when traversing this edge
+     * @param cost the weight of the edge
+     * @param value the length of the longest path to n which goes through this edge
+     */
+    private void connect(final int origin, final int n, final long decision, final int cost, final int value) {
+        int edge = newEdge(origin, decision, cost);
+        edgeNext[edge] = nodeInbound[n];
+        nodeInbound[n] = edge;
 
-        Edge edge = new Edge(node.node, decision, cost);
-        n.edges.add(edge);
+        if (value >= nodeValue[n]) {
+            nodeBest[n]  = edge;
+            nodeValue[n] = value;
+        }
+    }
+
+    /**
+     * Expands all the nodes of the current layer, using the pool to compute the
+     * transitions and the rough upper bounds of the reached states concurrently.
+     *
+     * @param problem the problem being compiled
+     * @param var the variable which is being assigned
+     */
+    private void expandInParallel(final Problem<T> problem, final int var) {
+        final int size      = currentLayer.size();
+        final int nbParts   = pool.getParallelism();
+        final int chunkSize = Math.max(MIN_CHUNK_SIZE, (size + 4 * nbParts - 1) / (4 * nbParts));
+        final int nbChunks  = (size + chunkSize - 1) / chunkSize;
+        ensureParallelBuffers(nbChunks, nbParts);
 
-        if (value >= n.value) {
-            n.best = edge;
-            n.value= value;
+        // 1. compute the transitions of all the chunks
+        pool.invoke(new ParallelFor(0, nbChunks, c -> 
+            chunks[c].expand(problem, var, c * chunkSize, Math.min(size, (c + 1) * chunkSize), nbParts)));
+        // 2. deduplicate the reached states and tell what becomes of each transition
+        pool.invoke(new ParallelFor(0, nbParts, p -> partitions[p].deduplicate(p, nbChunks)));
+        // 3. create the nodes and edges of the next layer
+        pool.invoke(new ParallelFor(0, nbChunks, c -> chunks[c].count()));
+        final int firstNode = nbNodes;
+        final int firstSlot = nextLayer.size();
+        for (int c = 0; c < nbChunks; c++) {
+            chunks[c].nodeBase = nbNodes;
+            chunks[c].edgeBase = nbEdges;
+            nbNodes += chunks[c].nbCreated;
+            nbEdges += chunks[c].nbConnected;
         }
+        ensureNodeCapacity(nbNodes);
+        ensureEdgeCapacity(nbEdges);
+        nextLayer.reserve(nbNodes - firstNode);
+        pool.invoke(new ParallelFor(0, nbChunks, c -> chunks[c].allocate(var, firstSlot - firstNode)));
+        pool.invoke(new ParallelFor(0, nbParts, p -> partitions[p].link(p, nbChunks)));
     }
-    
-    /** Performs a bottom up traversal of the mdd to compute the local bounds */
+    /** Makes sure there are enough chunks and partitions to expand a layer in parallel */
+    private void ensureParallelBuffers(final int nbChunks, final int nbParts) {
+        if (chunks.length < nbChunks) {
+            final int from = chunks.length;
+            chunks = Arrays.copyOf(chunks, nbChunks);
+            for (int c = from; c < nbChunks; c++) {
+                chunks[c] = new Chunk();
+            }
+        }
+        if (partitions.length < nbParts) {
+            final int from = partitions.length;
+            partitions = Arrays.copyOf(partitions, nbParts);
+            for (int p = from; p < nbParts; p++) {
+                partitions[p] = new Partition();
+            }
+        }
+    }
+
+    /**
+     * Performs a bottom up traversal of the mdd to compute the local bounds.
+     *
+     * # Note:
+     * The nodes are allocated in topological order: the nodes of a layer are all
+     * allocated before those of the next layer (and a merged node is allocated 
+     * right after the other nodes of its layer). Hence, visiting the nodes by 
+     * decreasing index guarantees that all the children of a node are visited 
+     * before the node itself. Only the nodes of the last exact layer need a local
+     * bound, so the traversal stops as soon as that layer is reached.
+     */
     private void computeLocalBounds() {
-        HashSet<Node> current = new HashSet<>();
-        HashSet<Node> parent  = new HashSet<>();
-        parent.addAll(nextLayer.values());
+        if (lel.isEmpty()) {
+            // the mdd is exact: its cutset is empty
+            return;
+        }
+        int stop = NIL;
+        for (int i = 0; i < lel.size(); i++) {
+            stop = Math.max(stop, lel.node(i));
+        }
+        for (int i = 0; i < nextLayer.size(); i++) {
+            nodeSuffix[nextLayer.node(i)] = 0;
+        }
 
-        for (Node n : parent) {
-            n.suffix = 0;
+        for (int n = nbNodes - 1; n > stop; n--) {
+            final int suffix = nodeSuffix[n];
+            if (suffix == NO_SUFFIX) {
+                // this node does not lead to the terminal layer
+                continue;
+            }
+            for (int e = nodeInbound[n]; e != NIL; e = edgeNext[e]) {
+                final int origin = edgeOrigin[e];
+                final int length = saturatedAdd(suffix, edgeWeight[e]);
+                if (nodeSuffix[origin] == NO_SUFFIX || length > nodeSuffix[origin]) {
+                    nodeSuffix[origin] = length;
+                }
+            }
         }
+    }
 
-        while (!parent.isEmpty()) {
-            HashSet<Node> tmp = current;
-            current = parent;
-            parent  = tmp;
-            parent.clear();
+    /** 
+     * @return the decisions on the longest path from the root of the problem to the given node 
+     * 
+     * # Note:
+     * The path of each node is memoized. Therefore the paths to all the nodes of the
+     * cutset are computed in a time which is linear in the number of nodes above it, 
+     * and they share all their common prefixes.
+     */
+    private DecisionPath pathTo(final int node) {
+        // walk up the best path until a node whose path is known is met
+        int depth = 0;
+        int n     = node;
+        while (nodePath[n] == null) {
+            int e = nodeBest[n];
+            if (e == NIL) {
+                nodePath[n] = pathToRoot;
+            } else {
+                if (depth == pending.length) {
+                    pending = Arrays.copyOf(pending, 2 * depth);
+                }
+                pending[depth++] = n;
+                n = edgeOrigin[e];
+            }
+        }
+        // then extend that path down to the node
+        DecisionPath path = nodePath[n];
+        while (depth > 0) {
+            n = pending[--depth];
+            long d      = edgeDecision[nodeBest[n]];
+            path        = path.with((int) (d >>> 32), (int) d);
+            nodePath[n] = path;
+        }
+        return path;
+    }
 
-            for (Node n : current) {
-                for (Edge e : n.edges) {
-                    // Note: we might want to do something and stop as soon as the lel has been reached
-                    Node origin = e.origin;
-                    parent.add(origin);
+    /**
+     * @return Turns the node at the given position of the last exact layer into an
+     *   actual subproblem
+     *
+     * # Note:
+     * The bound of the subproblem never exceeds the bound of the residual problem
+     * this DD was compiled for: the solutions of the subproblem are solutions of 
+     * the residual problem too. This guarantees that the bounds of the subproblems 
+     * never increase along the search, which is what the solver relies on to know
+     * a global upper bound at any time.
+     */
+    private SubProblem<T> toSubProblem(final int slot) {
+        final int node = lel.node(slot);
 
-                    if (origin.suffix == null) {
-                        origin.suffix = saturatedAdd(n.suffix, e.weight);
-                    } else {
-                        origin.suffix = Math.max(origin.suffix, saturatedAdd(n.suffix, e.weight));
-                    }
-                }
+        int locb = Integer.MIN_VALUE;
+        if (nodeSuffix[node] != NO_SUFFIX) {
+            locb = saturatedAdd(nodeValue[node], nodeSuffix[node]);
+        }
+        int ub = Math.min(rootUB, Math.min(lel.ub(slot), locb));
+
+        return new SubProblem<>(lel.state(slot), nodeValue[node], ub, pathTo(node));
+    }
+
+    /**
+     * Allocates a fresh node in the arena
+     *
+     * @param value the length of the longest path to the new node
+     * @return the index of the new node
+     */
+    private int newNode(final int value) {
+        ensureNodeCapacity(nbNodes + 1);
+        final int node = nbNodes++;
+        initNode(node, value);
+        return node;
+    }
+    /** Initializes the given (allocated) node of the arena */
+    private void initNode(final int node, final int value) {
+        nodeValue[node]   = value;
+        nodeSuffix[node]  = NO_SUFFIX;
+        nodeFub[node]     = Integer.MAX_VALUE;
+        nodeBest[node]    = NIL;
+        nodeInbound[node] = NIL;
+        nodeSlot[node]    = NIL;
+    }
+    /** Makes sure the node arena can hold the given number of nodes */
+    private void ensureNodeCapacity(final int capacity) {
+        if (capacity > nodeValue.length) {
+            int capa = 2 * nodeValue.length;
+            while (capa < capacity) {
+                capa *= 2;
+            }
+            nodeValue   = Arrays.copyOf(nodeValue,   capa);
+            nodeSuffix  = Arrays.copyOf(nodeSuffix,  capa);
+            nodeFub     = Arrays.copyOf(nodeFub,     capa);
+            nodeBest    = Arrays.copyOf(nodeBest,    capa);
+            nodeInbound = Arrays.copyOf(nodeInbound, capa);
+            nodeSlot    = Arrays.copyOf(nodeSlot,    capa);
+            nodePath    = Arrays.copyOf(nodePath,    capa);
+        }
+    }
+    /**
+     * Allocates a fresh edge in the arena
+     *
+     * @param origin the source node of the edge
+     * @param decision the (packed) decision that was made when traversing this edge
+     * @param weight the weight of the edge
+     * @return the index of the new edge
+     */
+    private int newEdge(final int origin, final long decision, final int weight) {
+        ensureEdgeCapacity(nbEdges + 1);
+        final int edge = nbEdges++;
+        initEdge(edge, origin, decision, weight);
+        return edge;
+    }
+    /** Initializes the given (allocated) edge of the arena */
+    private void initEdge(final int edge, final int origin, final long decision, final int weight) {
+        edgeOrigin[edge]   = origin;
+        edgeDecision[edge] = decision;
+        edgeWeight[edge]   = weight;
+        edgeNext[edge]     = NIL;
+    }
+    /** Makes sure the edge arena can hold the given number of edges */
+    private void ensureEdgeCapacity(final int capacity) {
+        if (capacity > edgeOrigin.length) {
+            int capa = 2 * edgeOrigin.length;
+            while (capa < capacity) {
+                capa *= 2;
             }
+            edgeOrigin   = Arrays.copyOf(edgeOrigin,   capa);
+            edgeDecision = Arrays.copyOf(edgeDecision, capa);
+            edgeWeight   = Arrays.copyOf(edgeWeight,   capa);
+            edgeNext     = Arrays.copyOf(edgeNext,     capa);
+        }
+    }
+    /** @return the decision object corresponding to the packed decision */
+    private Decision decision(final long packed) {
+        return decision((int) (packed >>> 32), (int) packed);
+    }
+    /** @return a decision object assigning the value val to the variable var */
+    private Decision decision(final int var, final int val) {
+        final int idx = val & (DECISION_CACHE_SIZE - 1);
+        Decision d    = decisions[idx];
+        if (d == null || d.var() != var || d.val() != val) {
+            d = new Decision(var, val);
+            decisions[idx] = d;
+        }
+        return d;
+    }
+    /** @return the packed representation of the decision assigning value val to var */
+    private static long pack(final int var, final int val) {
+        return ((long) var << 32) | (val & 0xFFFFFFFFL);
+    }
+
+    /**
+     * Rearranges the portion [lo, hi] of the given layer so that its k most promising
+     * nodes occupy the positions [lo, lo+k) -- in no particular order. Only the nodes
+     * to keep matter when shrinking a layer, hence selecting them (quickselect) is
+     * enough: it takes a linear time on average whereas sorting the layer does not.
+     */
+    private void selectDescending(final Layer<T> layer, int lo, int hi, final int k) {
+        final int target = lo + k - 1;
+        if (k <= 0 || target >= hi) {
+            return;
+        }
+        while (hi - lo > 16) {
+            final int pivot = partition(layer, lo, hi);
+            if (pivot == target) {
+                return;
+            } else if (pivot < target) {
+                lo = pivot + 1;
+            } else {
+                hi = pivot - 1;
+            }
+        }
+        insertionSort(layer, lo, hi);
+    }
+    /**
+     * Partitions the portion [lo, hi] of the given layer around a pivot (median of 
+     * three) with the nodes more promising than the pivot placed before it.
+     *
+     * @return the final position of the pivot
+     */
+    private int partition(final Layer<T> layer, final int lo, final int hi) {
+        final int mid = (lo + hi) >>> 1;
+        if (compare(layer, mid, lo) > 0) { layer.swap(mid, lo); }
+        if (compare(layer, hi, lo) > 0) { layer.swap(hi, lo);  }
+        if (compare(layer, hi, mid) > 0) { layer.swap(hi, mid); }
+        // the pivot (median of three) now sits at position mid
+        layer.swap(mid, hi - 1);
+        final int pivot = hi - 1;
+
+        int i = lo;
+        int j = hi - 1;
+        while (true) {
+            while (compare(layer, ++i, pivot) > 0) { }
+            while (compare(layer, --j, pivot) < 0) { }
+            if (i >= j) {
+                break;
+            }
+            layer.swap(i, j);
+        }
+        layer.swap(i, hi - 1);
+        return i;
+    }
+    /** Sorts the (small) portion [lo, hi] of the layer from the most to the least promising node */
+    private void insertionSort(final Layer<T> layer, final int lo, final int hi) {
+        for (int i = lo + 1; i <= hi; i++) {
+            for (int j = i; j > lo && compare(layer, j, j - 1) > 0; j--) {
+                layer.swap(j, j - 1);
+            }
+        }
+    }
+    /** Orders the nodes at positions a and b of the layer by their value then state */
+    private int compare(final Layer<T> layer, final int a, final int b) {
+        int cmp = Integer.compare(nodeValue[layer.node(a)], nodeValue[layer.node(b)]);
+        if (cmp == 0) {
+            return ranking.compare(layer.state(a), layer.state(b));
+        } else {
+            return cmp;
         }
     }
 
@@ -444,71 +1076,627 @@ public final class LinkedDecisionDiagram<T> implements DecisionDiagram<T> {
         return (int) sum;
     }
 
-    /** An iterator that transforms the inner subroblems into actual subroblems */
-    private static final class NodeSubProblemsAsSubProblemsIterator<T> implements Iterator<SubProblem<T>> {
-        /** The collection being iterated upon */
-        private final Iterator<NodeSubProblem<T>> it;
-        /** The list of decisions constitutive of the path to root */
-        private final Set<Decision> ptr;
+    // --- UTILITY CLASSES -----------------------------------------------
+    /**
+     * A layer of the decision diagram. It associates the nodes of the layer with
+     * their state and rough upper bound.
+     *
+     * This class essentially serves two purposes:
+     *
+     * - associate a node with a state during the compilation (and allow to
+     *   eagerly forget about the given state, which allows to save substantial
+     *   amounts of RAM while compiling the DD).
+     *
+     * - turn an MDD node from the exact cutset into a subproblem which is used
+     *   by the API.
+     */
+    private static final class Layer<T> {
+        /** The number of nodes in the layer */
+        private int size = 0;
+        /** The nodes of the layer */
+        private int[] nodes = new int[INITIAL_CAPACITY];
+        /** The state associated to each node */
+        private Object[] states = new Object[INITIAL_CAPACITY];
+        /** The upper bound associated with each node (if state were the root) */
+        private int[] ubs = new int[INITIAL_CAPACITY];
+
+        /** @return the number of nodes in this layer */
+        public int size() {
+            return size;
+        }
+        /** @return true iff the layer comprises no node */
+        public boolean isEmpty() {
+            return size == 0;
+        }
+        /** @return the node at the given position */
+        public int node(final int i) {
+            return nodes[i];
+        }
+        /** @return the state of the node at the given position */
+        @SuppressWarnings("unchecked")
+        public T state(final int i) {
+            return (T) states[i];
+        }
+        /** @return the upper bound of the node at the given position */
+        public int ub(final int i) {
+            return ubs[i];
+        }
+        /** Replaces the node at the given position */
+        public void set(final int i, final int node, final T state, final int ub) {
+            nodes[i]  = node;
+            states[i] = state;
+            ubs[i]    = ub;
+        }
+        /** Updates the upper bound of the node at the given position */
+        public void setUb(final int i, final int ub) {
+            ubs[i] = ub;
+        }
+        /** Appends a node to this layer */
+        public void add(final int node, final T state, final int ub) {
+            if (size == nodes.length) {
+                final int capa = 2 * size;
+                nodes  = Arrays.copyOf(nodes,  capa);
+                states = Arrays.copyOf(states, capa);
+                ubs    = Arrays.copyOf(ubs,    capa);
+            }
+            nodes[size]  = node;
+            states[size] = state;
+            ubs[size]    = ub;
+            size += 1;
+        }
+        /** Swaps the nodes at the given positions */
+        public void swap(final int a, final int b) {
+            int    n = nodes[a];  nodes[a]  = nodes[b];  nodes[b]  = n;
+            Object s = states[a]; states[a] = states[b]; states[b] = s;
+            int    u = ubs[a];    ubs[a]    = ubs[b];    ubs[b]    = u;
+        }
+        /** Removes the nodes whose upper bound is not greater than `lb` (preserving the order of the others) */
+        public void pruneByBound(final int lb) {
+            int len = 0;
+            for (int i = 0; i < size; i++) {
+                if (ubs[i] > lb) {
+                    nodes[len]  = nodes[i];
+                    states[len] = states[i];
+                    ubs[len]    = ubs[i];
+                    len += 1;
+                }
+            }
+            truncate(len);
+        }
+        /** Only retains the nodes for which `keep` is true (preserving their order) */
+        public void retain(final boolean[] keep) {
+            int len = 0;
+            for (int i = 0; i < size; i++) {
+                if (keep[i]) {
+                    nodes[len]  = nodes[i];
+                    states[len] = states[i];
+                    ubs[len]    = ubs[i];
+                    len += 1;
+                }
+            }
+            truncate(len);
+        }
+        /** Only retains the first `len` nodes of the layer */
+        public void truncate(final int len) {
+            Arrays.fill(states, len, size, null);
+            size = len;
+        }
+        /** Removes all nodes from the layer */
+        public void clear() {
+            truncate(0);
+        }
+    }
+
+    /**
+     * An open addressing hash index which associates the states of the next layer
+     * with the node that stands for them. The entries are stored densely (in insertion
+     * order) which makes it cheap to iterate over and to clear the index.
+     */
+    private static final class NodeIndex<T> {
+        /** The number of entries in the index */
+        private int size = 0;
+        /** The state of each entry */
+        private Object[] states = new Object[INITIAL_CAPACITY];
+        /** The node of each entry */
+        private int[] nodes = new int[INITIAL_CAPACITY];
+        /** The position of each entry in the hash table */
+        private int[] slots = new int[INITIAL_CAPACITY];
+        /** The hash table mapping a slot to the entry occupying it (or NIL) */
+        private int[] table = new int[2 * INITIAL_CAPACITY];
+        /** A reusable iterator over the states of this index */
+        private final StateIterator iterator = new StateIterator();
+
+        /** Creates a new empty index */
+        public NodeIndex() {
+            Arrays.fill(table, NIL);
+        }
+        /** @return the number of entries in this index */
+        public int size() {
+            return size;
+        }
+        /** @return the state of the i-th entry */
+        @SuppressWarnings("unchecked")
+        public T state(final int i) {
+            return (T) states[i];
+        }
+        /** @return the node of the i-th entry */
+        public int node(final int i) {
+            return nodes[i];
+        }
+        /** @return the node associated with the given state or NIL if there is none */
+        public int get(final T state) {
+            final int mask = table.length - 1;
+            int slot = Hashing.hash(state) & mask;
+            int entry;
+            while ((entry = table[slot]) != NIL) {
+                if (states[entry].equals(state)) {
+                    return nodes[entry];
+                }
+                slot = (slot + 1) & mask;
+            }
+            return NIL;
+        }
+        /** Associates the given node with a state which is not yet present in the index */
+        public void put(final T state, final int node) {
+            if (size == states.length) {
+                final int capa = 2 * size;
+                states = Arrays.copyOf(states, capa);
+                nodes  = Arrays.copyOf(nodes,  capa);
+                slots  = Arrays.copyOf(slots,  capa);
+                rehash(2 * capa);
+            }
+            final int mask = table.length - 1;
+            int slot = Hashing.hash(state) & mask;
+            while (table[slot] != NIL) {
+                slot = (slot + 1) & mask;
+            }
+            table[slot]  = size;
+            states[size] = state;
+            nodes[size]  = node;
+            slots[size]  = slot;
+            size += 1;
+        }
+        /** 
+         * Appends an entry to this index without indexing its state: this entry
+         * will never be returned by `get()`. This is only meant to fill a layer 
+         * whose states are known to be distinct in advance.
+         */
+        public void append(final T state, final int node) {
+            if (size == states.length) {
+                final int capa = 2 * size;
+                states = Arrays.copyOf(states, capa);
+                nodes  = Arrays.copyOf(nodes,  capa);
+                slots  = Arrays.copyOf(slots,  capa);
+                rehash(2 * capa);
+            }
+            states[size] = state;
+            nodes[size]  = node;
+            slots[size]  = NIL;
+            size += 1;
+        }
         /**
-         * Creates a new instance
-         * @param it the decorated iterator
-         * @param ptr the path to root
+         * Appends n entries to this index without indexing them (just like `append()`).
+         * Their states and nodes are to be given with `set()`.
          */
-        public NodeSubProblemsAsSubProblemsIterator(final Iterator<NodeSubProblem<T>> it, final Set<Decision> ptr) {
-            this.it = it;
-            this.ptr= ptr;
+        public void reserve(final int n) {
+            if (size + n > states.length) {
+                int capa = 2 * states.length;
+                while (capa < size + n) {
+                    capa *= 2;
+                }
+                states = Arrays.copyOf(states, capa);
+                nodes  = Arrays.copyOf(nodes,  capa);
+                slots  = Arrays.copyOf(slots,  capa);
+                rehash(2 * capa);
+            }
+            Arrays.fill(slots, size, size + n, NIL);
+            size += n;
+        }
+        /** Sets the state and node of the i-th entry, which has been reserved */
+        public void set(final int i, final T state, final int node) {
+            states[i] = state;
+            nodes[i]  = node;
+        }
+        /** Removes all entries from this index */
+        public void clear() {
+            for (int i = 0; i < size; i++) {
+                if (slots[i] != NIL) {
+                    table[slots[i]] = NIL;
+                }
+                states[i] = null;
+            }
+            size = 0;
+        }
+        /** @return an iterator over the states of this index */
+        public Iterator<T> states() {
+            iterator.position = 0;
+            return iterator;
+        }
+        /** Rebuilds the hash table with the given capacity */
+        private void rehash(final int capacity) {
+            table = new int[capacity];
+            Arrays.fill(table, NIL);
+            final int mask = capacity - 1;
+            for (int i = 0; i < size; i++) {
+                if (slots[i] == NIL) {
+                    continue;
+                }
+                int slot = Hashing.hash(states[i]) & mask;
+                while (table[slot] != NIL) {
+                    slot = (slot + 1) & mask;
+                }
+                table[slot] = i;
+                slots[i]    = slot;
+            }
+        }
+
+        /** An iterator over the states of the index */
+        private final class StateIterator implements Iterator<T> {
+            /** The position of the next entry */
+            private int position = 0;
+
+            @Override
+            public boolean hasNext() {
+                return position < size;
+            }
+            @Override
+            public T next() {
+                if (!hasNext()) {
+                    throw new NoSuchElementException();
+                }
+                return state(position++);
+            }
+        }
+    }
+
+    /** A consumer that branches on each transition of the nodes of a slice of the current layer */
+    private final class Brancher implements TransitionConsumer<T> {
+        /** The position of the first node of the slice in the current layer */
+        private int from;
+        /** The variable being assigned */
+        private int var;
+
+        /**
+         * Prepares this consumer to expand the slice starting at the given position
+         * @return this consumer
+         */
+        public Brancher reset(final int from, final int var) {
+            this.from = from;
+            this.var  = var;
+            return this;
+        }
+        @Override
+        public void accept(final int origin, final int value, final T next, final int cost) {
+            branchOn(from + origin, var, value, next, cost);
+        }
+    }
+    /** 
+     * The transitions of a chunk of the current layer, as they are computed during
+     * the first phase of a parallel expansion.
+     */
+    private final class Chunk implements TransitionConsumer<T> {
+        /** The number of buffered transitions */
+        private int size = 0;
+        /** The position of the first node of the chunk in the current layer */
+        private int from;
+        /** The number of partitions among which the reached states are spread */
+        private int nbParts;
+        /** The position (in the current layer) of the origin of each transition */
+        private int[] slot = new int[INITIAL_CAPACITY];
+        /** The value assigned to the branching variable by each transition */
+        private int[] value = new int[INITIAL_CAPACITY];
+        /** The state reached by each transition */
+        private Object[] states = new Object[INITIAL_CAPACITY];
+        /** The cost of each transition */
+        private int[] cost = new int[INITIAL_CAPACITY];
+        /** The partition to which the state reached by each transition belongs */
+        private int[] part = new int[INITIAL_CAPACITY];
+        /** The identifier of the reached state within its partition */
+        private int[] local = new int[INITIAL_CAPACITY];
+        /** The length of the longest path to the reached state which goes through each transition */
+        private int[] reach = new int[INITIAL_CAPACITY];
+        /** What becomes of each transition (DISCARDED, CONNECTED or CREATED) */
+        private byte[] fate = new byte[INITIAL_CAPACITY];
+        /** The edge created for each transition (which is not discarded) */
+        private int[] edge = new int[INITIAL_CAPACITY];
+        /** The transitions sorted by partition (and in order of appearance within a partition) */
+        private int[] order = new int[INITIAL_CAPACITY];
+        /** The position in `order` of the first transition of each partition (plus one past the end) */
+        private int[] partStart = new int[1];
+        /** The number of transitions that create a node */
+        private int nbCreated;
+        /** The number of transitions that create an edge */
+        private int nbConnected;
+        /** The first node allocated for this chunk */
+        private int nodeBase;
+        /** The first edge allocated for this chunk */
+        private int edgeBase;
+        /** A view on the nodes of the chunk */
+        private final LayerSlice<T> chunkSlice = new LayerSlice<>();
+
+        /** Computes and buffers all the transitions of the nodes in the range [from, to) of the current layer */
+        public void expand(final Problem<T> problem, final int var, final int from, final int to, final int nbParts) {
+            this.size    = 0;
+            this.from    = from;
+            this.nbParts = nbParts;
+            problem.transitions(chunkSlice.reset(currentLayer, from, to), var, this);
+            sortByPartition();
+        }
+        @Override
+        public void accept(final int origin, final int val, final T next, final int cst) {
+            if (size == slot.length) {
+                final int capa = 2 * size;
+                slot   = Arrays.copyOf(slot,   capa);
+                value  = Arrays.copyOf(value,  capa);
+                states = Arrays.copyOf(states, capa);
+                cost   = Arrays.copyOf(cost,   capa);
+                part   = Arrays.copyOf(part,   capa);
+                local  = Arrays.copyOf(local,  capa);
+                reach  = Arrays.copyOf(reach,  capa);
+                fate   = Arrays.copyOf(fate,   capa);
+                edge   = Arrays.copyOf(edge,   capa);
+                order  = Arrays.copyOf(order,  capa);
+            }
+            slot[size]   = from + origin;
+            value[size]  = val;
+            states[size] = next;
+            cost[size]   = cst;
+            part[size]   = Hashing.index(next, nbParts);
+            size += 1;
+        }
+        /** @return the state reached by the i-th transition */
+        @SuppressWarnings("unchecked")
+        public T state(final int i) {
+            return (T) states[i];
+        }
+        /** Counts the transitions that create a node and those that create an edge */
+        public void count() {
+            nbCreated   = 0;
+            nbConnected = 0;
+            for (int i = 0; i < size; i++) {
+                if (fate[i] == CREATED) {
+                    nbCreated += 1;
+                }
+                if (fate[i] != DISCARDED) {
+                    nbConnected += 1;
+                }
+            }
+        }
+        /** 
+         * Initializes the nodes and edges created by the transitions of this chunk
+         * and forgets about the buffered states
+         *
+         * @param var the variable which is being assigned
+         * @param shift the difference between the position of a new node in the next layer and its index
+         */
+        public void allocate(final int var, final int shift) {
+            int n = nodeBase;
+            int e = edgeBase;
+            for (int i = 0; i < size; i++) {
+                if (fate[i] == DISCARDED) {
+                    continue;
+                }
+                if (fate[i] == CREATED) {
+                    final Partition partition = partitions[part[i]];
+                    initNode(n, reach[i]);
+                    nodeFub[n] = partition.fub[local[i]];
+                    nextLayer.set(n + shift, state(i), n);
+                    partition.node[local[i]] = n;
+                    n += 1;
+                }
+                initEdge(e, currentLayer.node(slot[i]), pack(var, value[i]), cost[i]);
+                edge[i] = e;
+                e += 1;
+            }
+            Arrays.fill(states, 0, size, null);
+        }
+        /** Sorts the transitions by partition (while preserving their order within each partition) */
+        private void sortByPartition() {
+            if (partStart.length < nbParts + 1) {
+                partStart = new int[nbParts + 1];
+            }
+            Arrays.fill(partStart, 0, nbParts + 1, 0);
+            for (int i = 0; i < size; i++) {
+                partStart[part[i] + 1] += 1;
+            }
+            for (int p = 0; p < nbParts; p++) {
+                partStart[p + 1] += partStart[p];
+            }
+            // partStart[p] is used as the insertion point of partition p, then restored
+            for (int i = 0; i < size; i++) {
+                order[partStart[part[i]]++] = i;
+            }
+            for (int p = nbParts; p > 0; p--) {
+                partStart[p] = partStart[p - 1];
+            }
+            partStart[0] = 0;
+        }
+    }
+    /** 
+     * A partition of the next layer when it is expanded in parallel. It identifies
+     * the distinct states of the partition and computes their rough upper bound.
+     */
+    private final class Partition {
+        /** Maps each distinct state of the partition onto its local identifier */
+        private final NodeIndex<T> index = new NodeIndex<>();
+        /** The rough upper bound of each distinct state */
+        private int[] fub = new int[INITIAL_CAPACITY];
+        /** The node created for each distinct state */
+        private int[] node = new int[INITIAL_CAPACITY];
+        /** Tells whether a node is created for each distinct state */
+        private boolean[] created = new boolean[INITIAL_CAPACITY];
+        /** The number of distinct states in the partition */
+        private int size = 0;
+
+        /** 
+         * Deduplicates the states which belong to this partition, among those reached 
+         * in the first chunks, and decides what becomes of each transition reaching them.
+         * Just like in a sequential expansion, a transition is discarded when it would
+         * create a node whose rough upper bound cannot improve the best known lower bound.
+         */
+        public void deduplicate(final int p, final int nbChunks) {
+            size = 0;
+            for (int c = 0; c < nbChunks; c++) {
+                final Chunk chunk = chunks[c];
+                for (int k = chunk.partStart[p]; k < chunk.partStart[p + 1]; k++) {
+                    final int i     = chunk.order[k];
+                    final T   state = chunk.state(i);
+                    int id = index.get(state);
+                    if (id == NIL) {
+                        if (size == fub.length) {
+                            fub     = Arrays.copyOf(fub,     2 * size);
+                            node    = Arrays.copyOf(node,    2 * size);
+                            created = Arrays.copyOf(created, 2 * size);
+                        }
+                        id          = size++;
+                        fub[id]     = relax.fastUpperBound(state, variables);
+                        created[id] = false;
+                        index.put(state, id);
+                    }
+                    final int value = saturatedAdd(nodeValue[currentLayer.node(chunk.slot[i])], chunk.cost[i]);
+                    chunk.local[i] = id;
+                    chunk.reach[i] = value;
+                    if (created[id]) {
+                        chunk.fate[i] = CONNECTED;
+                    } else if (saturatedAdd(value, fub[id]) <= bestLB) {
+                        chunk.fate[i] = DISCARDED;
+                    } else {
+                        chunk.fate[i] = CREATED;
+                        created[id]   = true;
+                    }
+                }
+            }
+            index.clear();
+        }
+        /** 
+         * Links the edges created by the transitions reaching the states of this
+         * partition to their destination, in the order of a sequential expansion
+         */
+        public void link(final int p, final int nbChunks) {
+            for (int c = 0; c < nbChunks; c++) {
+                final Chunk chunk = chunks[c];
+                for (int k = chunk.partStart[p]; k < chunk.partStart[p + 1]; k++) {
+                    final int i = chunk.order[k];
+                    if (chunk.fate[i] == DISCARDED) {
+                        continue;
+                    }
+                    final int n     = node[chunk.local[i]];
+                    final int e     = chunk.edge[i];
+                    final int value = chunk.reach[i];
+                    edgeNext[e]    = nodeInbound[n];
+                    nodeInbound[n] = e;
+                    if (value >= nodeValue[n]) {
+                        nodeBest[n]  = e;
+                        nodeValue[n] = value;
+                    }
+                }
+            }
+        }
+    }
+    /** A fork/join task which applies some body to each integer of a range */
+    private static final class ParallelFor extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+        /** The first integer of the range */
+        private final int lo;
+        /** The integer past the end of the range */
+        private final int hi;
+        /** What is to be done for each integer of the range */
+        private final IntConsumer body;
+
+        public ParallelFor(final int lo, final int hi, final IntConsumer body) {
+            this.lo   = lo;
+            this.hi   = hi;
+            this.body = body;
         }
+        @Override
+        protected void compute() {
+            if (hi - lo <= 1) {
+                for (int i = lo; i < hi; i++) {
+                    body.accept(i);
+                }
+            } else {
+                final int mid = (lo + hi) >>> 1;
+                invokeAll(new ParallelFor(lo, mid, body), new ParallelFor(mid, hi, body));
+            }
+        }
+    }
+    /** An iterator that transforms the nodes of the last exact layer into actual subproblems */
+    private final class LelAsSubProblemsIterator implements Iterator<SubProblem<T>> {
+        /** The position of the next node in the lel */
+        private int position = 0;
+
         @Override
         public boolean hasNext() {
-            return it.hasNext();
+            return position < lel.size();
         }
         @Override
         public SubProblem<T> next() {
-            return it.next().toSubProblem(ptr);
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            return toSubProblem(position++);
         }
     }
-    /** An iterator that transforms the inner subroblems into their representing states */
-    private static final class NodeSubProblemsAsStateIterator<T> implements Iterator<T> {
-        /** The collection being iterated upon */
-        private final Iterator<NodeSubProblem<T>> it;
+    /** A reusable (read only) list view on the states of a portion of some layer */
+    private static final class LayerSlice<T> extends AbstractList<T> {
+        /** The layer being viewed */
+        private Layer<T> layer;
+        /** The position of the first state of the slice */
+        private int from;
+        /** The number of states in the slice */
+        private int size;
+
         /**
-         * Creates a new instance
-         * @param it the decorated iterator
+         * Prepares this view to show the given range of the layer
+         * @return this view
          */
-        public NodeSubProblemsAsStateIterator(final Iterator<NodeSubProblem<T>> it) {
-            this.it = it;
+        public LayerSlice<T> reset(final Layer<T> layer, final int from, final int to) {
+            this.layer = layer;
+            this.from  = from;
+            this.size  = to - from;
+            return this;
         }
         @Override
-        public boolean hasNext() {
-            return it.hasNext();
+        public T get(final int index) {
+            if (index < 0 || index >= size) {
+                throw new IndexOutOfBoundsException("index " + index + " size " + size);
+            }
+            return layer.state(from + index);
         }
         @Override
-        public T next() {
-            return it.next().state;
+        public int size() {
+            return size;
         }
     }
-    /** This utility class implements a decorator pattern to sort NodeSubProblems by their value then state */
-    private static final class NodeSubroblemComparator<T> implements Comparator<NodeSubProblem<T>>{
-        /** This is the decorated ranking */
-        private final StateRanking<T> delegate;
-        
-        /** 
-         * Creates a new instance
-         * @param delegate the decorated ranking
+    /** A reusable iterator over the states of a portion of some layer */
+    private static final class LayerStateIterator<T> implements Iterator<T> {
+        /** The layer being iterated upon */
+        private Layer<T> layer;
+        /** The position of the next state */
+        private int position;
+        /** The position past the last state to iterate upon */
+        private int end;
+
+        /**
+         * Prepares this iterator to iterate over the given range of the layer
+         * @return this iterator
          */
-        public NodeSubroblemComparator(final StateRanking<T> delegate) {
-            this.delegate = delegate;
+        public LayerStateIterator<T> reset(final Layer<T> layer, final int from, final int to) {
+            this.layer    = layer;
+            this.position = from;
+            this.end      = to;
+            return this;
         }
-
         @Override
-        public int compare(NodeSubProblem<T> o1, NodeSubProblem<T> o2) {
-            int cmp = o1.node.value - o2.node.value;
-            if (cmp == 0) {
-                return delegate.compare(o1.state, o2.state);
-            } else {
-                return cmp;
+        public boolean hasNext() {
+            return position < end;
+        }
+        @Override
+        public T next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
             }
-        }        
+            return layer.state(position++);
+        }
     }
 }
@@ -0,0 +1,167 @@
+package be.uclouvain.ingi.aia.ddo4j.implem.relaxation;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+
+import be.uclouvain.ingi.aia.ddo4j.core.Decision;
+import be.uclouvain.ingi.aia.ddo4j.core.Relaxation;
+import be.uclouvain.ingi.aia.ddo4j.core.VarSet;
+import be.uclouvain.ingi.aia.ddo4j.implem.utils.GenericArrays;
+import be.uclouvain.ingi.aia.ddo4j.implem.utils.Hashing;
+
+/**
+ * This relaxation decorates another one so as to memoize the rough upper bounds
+ * it computes. The rough upper bound of a state only depends on that state and
+ * on the set of variables which are still unassigned. Hence, a bound is computed
+ * once for each (state, unassigned variables) pair and reused whenever that pair
+ * is met again: in a later layer, in the diagram of another subproblem or in the
+ * diagram compiled by another thread.
+ *
+ * The cache is bounded: it holds at most a given number of bounds and forgets
+ * the least recently used ones first. It is safe to use from several threads
+ * at once, which means that one instance can be shared by all the diagrams of
+ * a parallel solver.
+ *
+ * # Note:
+ * This is only worth it when the rough upper bound is expensive to compute (for
+ * instance when it solves a linear program). The cheap bounds are faster to
+ * compute than to look up.
+ *
+ * # Note:
+ * Only the bounds requested through `fastUpperBound(T, VarSet)` (which is what
+ * the decision diagrams call) are memoized. The states must correctly override
+ * equals and hashcode.
+ */
+public final class CachingRelaxation<T> implements Relaxation<T> {
+    /** The maximum number of segments */
+    private static final int MAX_SEGMENTS = 16;
+
+    /** The decorated relaxation */
+    private final Relaxation<T> delegate;
+    /** The segments of the cache */
+    private final Segment<T>[] segments;
+    /**
+     * The last set of unassigned variables seen by each thread. The nodes of one
+     * layer all share the same variables: this lets them share one same signature.
+     */
+    private final ThreadLocal<Signature> last;
+
+    /**
+     * Creates a new instance
+     *
+     * @param delegate the decorated relaxation
+     * @param capacity the maximum number of bounds held in the cache
+     */
+    public CachingRelaxation(final Relaxation<T> delegate, final int capacity) {
+        if (capacity < 1) {
+            throw new IllegalArgumentException("the capacity must be positive " + capacity);
+        }
+        final int n   = Math.min(MAX_SEGMENTS, capacity);
+        this.delegate = delegate;
+        this.segments = GenericArrays.newArray(Segment.class, n);
+        this.last     = ThreadLocal.withInitial(() -> new Signature(new VarSet()));
+        for (int i = 0; i < n; i++) {
+            segments[i] = new Segment<>((capacity + n - 1) / n);
+        }
+    }
+
+    @Override
+    public T mergeStates(final Iterator<T> states) {
+        return delegate.mergeStates(states);
+    }
+
+    @Override
+    public int relaxEdge(final T from, final T to, final T merged, final Decision d, final int cost) {
+        return delegate.relaxEdge(from, to, merged, d, cost);
+    }
+
+    @Override
+    public int fastUpperBound(final T state, final Set<Integer> variables) {
+        return delegate.fastUpperBound(state, variables);
+    }
+
+    @Override
+    public int fastUpperBound(final T state, final VarSet variables) {
+        Signature signature = last.get();
+        if (!signature.variables.equals(variables)) {
+            signature = new Signature(variables.copy());
+            last.set(signature);
+        }
+
+        final Key<T> key         = new Key<>(state, signature);
+        final Segment<T> segment = segments[(key.hash & Integer.MAX_VALUE) % segments.length];
+        synchronized (segment) {
+            final Integer known = segment.get(key);
+            if (known != null) {
+                return known;
+            }
+        }
+        // the bound is computed outside of the critical section: it may be expensive
+        final int bound = delegate.fastUpperBound(state, variables);
+        synchronized (segment) {
+            segment.put(key, bound);
+        }
+        return bound;
+    }
+
+    /** An immutable snapshot of a set of unassigned variables */
+    private static final class Signature {
+        /** The unassigned variables (must never be modified) */
+        final VarSet variables;
+        /** The hash of these variables */
+        final int hash;
+
+        public Signature(final VarSet variables) {
+            this.variables = variables;
+            this.hash      = variables.hashCode();
+        }
+    }
+
+    /** The key of a memoized bound: a state and the variables which are still unassigned */
+    private static final class Key<T> {
+        /** The state whose bound is memoized */
+        final T state;
+        /** The variables which are still unassigned */
+        final Signature signature;
+        /** The hash of this key */
+        final int hash;
+
+        public Key(final T state, final Signature signature) {
+            this.state     = state;
+            this.signature = signature;
+            this.hash      = Hashing.spread(31 * state.hashCode() + signature.hash);
+        }
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+        @Override
+        public boolean equals(final Object o) {
+            if (!(o instanceof Key)) {
+                return false;
+            }
+            final Key<?> that = (Key<?>) o;
+            return this.hash == that.hash
+                && this.state.equals(that.state)
+                && (this.signature == that.signature || this.signature.variables.equals(that.signature.variables));
+        }
+    }
+
+    /** A segment of the cache: a map in lru order with a bounded size */
+    private static final class Segment<T> extends LinkedHashMap<Key<T>, Integer> {
+        private static final long serialVersionUID = 1L;
+        /** The maximum number of bounds in this segment */
+        private final int capacity;
+
+        public Segment(final int capacity) {
+            super(16, 0.75f, true);
+            this.capacity = capacity;
+        }
+        @Override
+        protected boolean removeEldestEntry(final Map.Entry<Key<T>, Integer> eldest) {
+            return size() > capacity;
+        }
+    }
+}
@@ -0,0 +1,5 @@
+/**
+ * This package contains the classes that decorate the relaxation of a problem
+ * (for instance, to memoize its rough upper bounds).
+ */
+package be.uclouvain.ingi.aia.ddo4j.implem.relaxation;
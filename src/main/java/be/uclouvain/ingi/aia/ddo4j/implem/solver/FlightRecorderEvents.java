@@ -0,0 +1,92 @@
+package be.uclouvain.ingi.aia.ddo4j.implem.solver;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * The Java Flight Recorder events emitted by the solver when it is asked to.
+ * They show up in the recordings under the `ddo4j` category.
+ *
+ * # Note:
+ * This class is the only one to refer to the flight recorder api, which is not
+ * part of java 8. Hence it is left out of the default build (it is only compiled
+ * with the `jfr` maven profile, on a jdk which ships the flight recorder) and
+ * the solver never refers to it directly: it loads it reflectively when the
+ * events are enabled.
+ */
+final class FlightRecorderEvents implements SolverEvents {
+    /** Creates a new instance (this constructor is called reflectively) */
+    FlightRecorderEvents() {}
+
+    @Override
+    public Object beginCompilation() {
+        final Compilation event = new Compilation();
+        event.begin();
+        return event;
+    }
+    @Override
+    public void endCompilation(
+        final Object event,
+        final String type,
+        final int width,
+        final int layers,
+        final int peakWidth,
+        final int merged,
+        final boolean exact)
+    {
+        final Compilation compilation = (Compilation) event;
+        compilation.end();
+        if (compilation.shouldCommit()) {
+            compilation.type      = type;
+            compilation.width     = width;
+            compilation.layers    = layers;
+            compilation.peakWidth = peakWidth;
+            compilation.merged    = merged;
+            compilation.exact     = exact;
+            compilation.commit();
+        }
+    }
+    @Override
+    public void frontier(final int cutset, final int size) {
+        final FrontierSize event = new FrontierSize();
+        if (event.shouldCommit()) {
+            event.cutset = cutset;
+            event.size   = size;
+            event.commit();
+        }
+    }
+
+    /** The compilation of one decision diagram */
+    @Name("ddo4j.Compilation")
+    @Label("Compilation")
+    @Category("ddo4j")
+    @Description("The compilation of a decision diagram")
+    public static final class Compilation extends Event {
+        @Label("Type")
+        String type;
+        @Label("Maximum Width")
+        int width;
+        @Label("Layers")
+        int layers;
+        @Label("Peak Width")
+        int peakWidth;
+        @Label("Merged Nodes")
+        int merged;
+        @Label("Exact")
+        boolean exact;
+    }
+    /** The size of the frontier after a cutset was enqueued */
+    @Name("ddo4j.Frontier")
+    @Label("Frontier")
+    @Category("ddo4j")
+    @Description("The size of the frontier after a cutset was enqueued")
+    public static final class FrontierSize extends Event {
+        @Label("Cutset Size")
+        int cutset;
+        @Label("Frontier Size")
+        int size;
+    }
+}
@@ -1,23 +1,49 @@
 package be.uclouvain.ingi.aia.ddo4j.implem.solver;
 
-import java.util.Collections;
 import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.BooleanSupplier;
+import java.util.function.IntSupplier;
+import java.util.function.Supplier;
 
+import be.uclouvain.ingi.aia.ddo4j.core.Clustering;
 import be.uclouvain.ingi.aia.ddo4j.core.CompilationInput;
 import be.uclouvain.ingi.aia.ddo4j.core.CompilationType;
+import be.uclouvain.ingi.aia.ddo4j.core.ConcurrentFrontier;
 import be.uclouvain.ingi.aia.ddo4j.core.Decision;
 import be.uclouvain.ingi.aia.ddo4j.core.DecisionDiagram;
+import be.uclouvain.ingi.aia.ddo4j.core.DecisionPath;
+import be.uclouvain.ingi.aia.ddo4j.core.DominanceChecker;
 import be.uclouvain.ingi.aia.ddo4j.core.Frontier;
 import be.uclouvain.ingi.aia.ddo4j.core.Problem;
 import be.uclouvain.ingi.aia.ddo4j.core.Relaxation;
+import be.uclouvain.ingi.aia.ddo4j.core.SolutionListener;
 import be.uclouvain.ingi.aia.ddo4j.core.Solver;
 import be.uclouvain.ingi.aia.ddo4j.core.SubProblem;
 import be.uclouvain.ingi.aia.ddo4j.heuristics.StateRanking;
 import be.uclouvain.ingi.aia.ddo4j.heuristics.VariableHeuristic;
 import be.uclouvain.ingi.aia.ddo4j.heuristics.WidthHeuristic;
 import be.uclouvain.ingi.aia.ddo4j.implem.mdd.LinkedDecisionDiagram;
+import be.uclouvain.ingi.aia.ddo4j.implem.solver.SolverStatistics.Counter;
+import be.uclouvain.ingi.aia.ddo4j.implem.utils.GenericArrays;
+import be.uclouvain.ingi.aia.ddo4j.implem.utils.Hashing;
 
 /**
  * The branch and bound with mdd paradigm parallelizes *VERY* well. This is why
@@ -28,8 +54,76 @@ import be.uclouvain.ingi.aia.ddo4j.implem.mdd.LinkedDecisionDiagram;
  * SEE WHAT IT LOOKS LIKE WITHOUT PAYING ATTENTION TO THE PARALLEL STUFFS, YOU
  * WILL WANT TO TAKE A LOOK AT THE `processOneNode()`. THIS IS WHERE THE INFO
  * YOU ARE LOOKING FOR IS LOCATED.
+ * 
+ * # Scheduling modes:
+ * The solver can distribute the work among its threads in two ways:
+ * 
+ * - by default, all threads share one single frontier which is protected by 
+ *   the critical section. This mode guarantees that the most promising node 
+ *   is always processed first, but the frontier lock becomes a bottleneck when
+ *   many threads compile small decision diagrams. (This is mitigated when the
+ *   shared frontier is a `ConcurrentFrontier`: the threads then push their 
+ *   cutsets without entering the critical section).
+ * - in work stealing mode, each thread owns a local frontier where it pushes 
+ *   its own cutsets. A thread whose frontier runs dry steals the most promising
+ *   subproblem of one of its peers. This mode scales to many more threads.
+ * 
+ * # Visited states:
+ * Optionally, the solver remembers the states of (a bounded number of) the
+ * subproblems it has explored, along with the length of the longest path 
+ * leading to them. A subproblem whose state has already been explored with 
+ * a path which is at least as long is then skipped. Just like with the
+ * NoDuplicateFrontier, this requires that the subproblems having one same root
+ * state be equivalent.
+ * 
+ * # Ramp up:
+ * At the beginning of the search, there are fewer subproblems than threads.
+ * During that phase, the solver processes the subproblems one at a time but 
+ * with all its threads cooperating to expand the layers of each diagram. The
+ * regular scheduling only starts when there is enough work for every thread.
+ * The ramp up can be disabled with `withParallelRampUp(false)`.
+ * 
+ * # Bounds and gap:
+ * Each thread remembers the upper bound of the last subproblem it has popped.
+ * Because the frontiers pop their nodes in descending upper bound order, and 
+ * because the bound of a subproblem never exceeds the bound of its parent, the
+ * greatest of these bounds is an upper bound on the value of any open subproblem.
+ * This gives a global upper bound at any time (see `progress()`). Optionally,
+ * the solver stops as soon as the gap between that bound and the incumbent 
+ * drops below a given absolute or relative threshold.
+ * 
+ * # Budgets:
+ * The search can be bounded in time, in number of explored nodes and in heap
+ * usage; it can also be cancelled at any time. The budgets are checked before 
+ * each node is handed out to a thread, and the time, heap and cancellation are
+ * also checked before each layer of a diagram is expanded. Hence, all threads 
+ * stop promptly even when they are compiling large diagrams. When maximize()
+ * returns, `progress()` tells the incumbent, the best proved upper bound and 
+ * why the solver has stopped.
+ * 
+ * # Listeners:
+ * Each improvement of the incumbent is handed over to a dedicated thread which
+ * notifies the registered listeners. The threads of the solver never wait for
+ * the listeners, and maximize() only returns once all the improvements have been
+ * notified. A listener which throws does not prevent the others from being
+ * notified: its failure is reported to the uncaught exception handler of the
+ * notifying thread.
+ * 
+ * # Statistics:
+ * Each thread counts the work it does (nodes popped and pruned, compilations 
+ * and their durations, layers, merged nodes, cutsets, ...) as well as the time
+ * it spends waiting for locks or for work. These counters can be read at any 
+ * time through `statistics()`. Optionally, the solver also emits flight recorder
+ * events for each compilation and for each cutset being enqueued.
  */
 public final class ParallelSolver<T> implements Solver {
+    /** How long (in nanoseconds) an idle thread first waits before trying to steal work again */
+    private static final long IDLE_NANOS = 10_000;
+    /** The longest (in nanoseconds) an idle thread waits before trying to steal work again */
+    private static final long MAX_IDLE_NANOS = 1_000_000;
+    /** The name of the class emitting the flight recorder events (which is not part of the default build) */
+    private static final String FLIGHT_RECORDER_EVENTS = "be.uclouvain.ingi.aia.ddo4j.implem.solver.FlightRecorderEvents";
+
     /*
      * The various threads of the solver share a common zone of memory. That 
      * zone of shared memory is split in two: 
@@ -39,7 +133,48 @@ public final class ParallelSolver<T> implements Solver {
     private final Shared<T> shared;
     /** The portion of the shared state that can only be accessed from the critical sections */
     private final Critical<T> critical;
+    /** The per-thread frontiers when the solver runs in work stealing mode (null otherwise) */
+    private final WorkStealing<T> stealing;
+    /** The live source of the best known lower bound which is consulted by the compilations */
+    private final IntSupplier liveLB = this::bestLB;
+    /** The cache of the states which have already been explored (null when it is disabled) */
+    private VisitedStates<T> visited = null;
+    /** The dominance relation used to discard the dominated nodes of each layer (null when there is none) */
+    private DominanceChecker<T, ?> dominance = null;
+    /** How the nodes of the over wide layers of the relaxed mdds are merged (null means all in one node) */
+    private Clustering<T> clustering = null;
+    /** The counters of each thread */
+    private final Metrics metrics;
+    /** True iff the layers of the diagrams compiled during the ramp up are expanded in parallel */
+    private boolean parallelRampUp = true;
+    /** The events emitted by the solver (null when it emits none) */
+    private SolverEvents events = null;
+    /** The solver stops as soon as the absolute gap drops to this value (negative when disabled) */
+    private long absoluteGap = -1;
+    /** The solver stops as soon as the relative gap drops to this value (negative when disabled) */
+    private double relativeGap = -1;
+    /** The maximum time (in nanoseconds) the search may last (negative when unlimited) */
+    private long timeLimit = -1;
+    /** The time (System.nanoTime) when the search must stop */
+    private long deadline = 0;
+    /** The maximum number of nodes that may be explored (negative when unlimited) */
+    private long nodeLimit = -1;
+    /** The maximum number of bytes of heap that may be in use (negative when unlimited) */
+    private long memoryLimit = -1;
+    /** Why the solver has stopped (null as long as it is running) */
+    private final AtomicReference<Termination> termination = new AtomicReference<>(null);
+    /** Tells whether the ongoing compilations must be given up */
+    private final BooleanSupplier interrupted = this::mustInterrupt;
+    /** The listeners which are notified of the improvements of the incumbent */
+    private final List<SolutionListener> listeners = new CopyOnWriteArrayList<>();
+    /** The thread which notifies the listeners (null when the solver is not running) */
+    private volatile ExecutorService notifier = null;
+    /** The value of the last solution the listeners were notified of (only used by the notifier) */
+    private int notified = Integer.MIN_VALUE;
 
+    /**
+     * Creates a solver whose threads all share one same frontier
+     */
     public ParallelSolver(
         final int nbThreads, 
         final Problem<T> problem,
@@ -51,11 +186,220 @@ public final class ParallelSolver<T> implements Solver {
     {
         this.shared   = new Shared<>(nbThreads, problem, relax, varh, ranking, width);
         this.critical = new Critical<>(nbThreads, frontier);
+        this.metrics  = new Metrics(nbThreads);
+        this.stealing = null;
+    }
+    /**
+     * Creates a solver running in work stealing mode: each thread owns a local
+     * frontier which is created with the given factory.
+     */
+    public ParallelSolver(
+        final int nbThreads, 
+        final Problem<T> problem,
+        final Relaxation<T> relax,
+        final VariableHeuristic<T> varh,
+        final StateRanking<T> ranking,
+        final WidthHeuristic<T> width,
+        final Supplier<Frontier<T>> frontiers) 
+    {
+        this.shared   = new Shared<>(nbThreads, problem, relax, varh, ranking, width);
+        this.critical = new Critical<>(nbThreads, null);
+        this.metrics  = new Metrics(nbThreads);
+        this.stealing = new WorkStealing<>(nbThreads, frontiers, metrics);
+    }
+
+    /**
+     * Enables the cache of visited states. This method must be called before 
+     * the solver is started.
+     * 
+     * @param capacity the maximum number of states to remember (the least recently
+     *   visited states are forgotten first)
+     * @return this solver
+     */
+    public ParallelSolver<T> withVisitedStates(final int capacity) {
+        this.visited = new VisitedStates<>(capacity);
+        return this;
+    }
+
+    /**
+     * Makes the decision diagrams compiled by the solver discard the dominated
+     * nodes of their layers. This method must be called before the solver is 
+     * started.
+     * 
+     * # Note:
+     * To also discard the dominated subproblems of the frontier, the solver must
+     * be given a `DominanceFrontier` configured with the same dominance relation.
+     * 
+     * @param dominance the dominance relation among the states
+     * @return this solver
+     */
+    public ParallelSolver<T> withDominance(final DominanceChecker<T, ?> dominance) {
+        this.dominance = dominance;
+        return this;
+    }
+
+    /**
+     * Makes the relaxed decision diagrams compiled by the solver merge the nodes
+     * of their over wide layers into several clusters rather than into one single
+     * node. This method must be called before the solver is started.
+     * 
+     * @param clustering how the nodes are partitioned into clusters
+     * @return this solver
+     */
+    public ParallelSolver<T> withClustering(final Clustering<T> clustering) {
+        this.clustering = clustering;
+        return this;
+    }
+
+    /**
+     * Tells whether the layers of the diagrams compiled during the ramp up are
+     * expanded in parallel (which is the case by default). When it is disabled, 
+     * the solver does not create any additional threads: the search starts right
+     * away with the first thread alone, and the other threads join in as soon as
+     * there is work for them. This method must be called before the solver is started.
+     * 
+     * @param enabled true iff the ramp up must expand the layers in parallel
+     * @return this solver
+     */
+    public ParallelSolver<T> withParallelRampUp(final boolean enabled) {
+        this.parallelRampUp = enabled;
+        return this;
+    }
+
+    /**
+     * Makes the solver emit java flight recorder events (in the `ddo4j` category)
+     * for each compilation and for each cutset being enqueued. The events are only
+     * recorded when a flight recording is ongoing. This method must be called before
+     * the solver is started, and it requires a runtime which ships the flight recorder.
+     *
+     * # Note:
+     * The flight recorder events are only part of the library when it is built
+     * with the `jfr` maven profile (on a jdk which ships the flight recorder).
+     * 
+     * @return this solver
+     * @throws UnsupportedOperationException when the events are not available
+     */
+    public ParallelSolver<T> withFlightRecorder() {
+        try {
+            this.events = (SolverEvents) Class.forName(FLIGHT_RECORDER_EVENTS).getDeclaredConstructor().newInstance();
+        } catch (ReflectiveOperationException | LinkageError e) {
+            throw new UnsupportedOperationException("the flight recorder events are not available "
+                + "(the library must be built with the jfr profile and run on a jdk shipping the flight recorder)", e);
+        }
+        return this;
+    }
+
+    /**
+     * Makes the solver stop as soon as the gap between the best proved upper bound
+     * and the value of the incumbent drops to the given value. This method must 
+     * be called before the solver is started.
+     * 
+     * @param gap the largest absolute gap which is good enough (0 means optimal)
+     * @return this solver
+     */
+    public ParallelSolver<T> withAbsoluteGap(final int gap) {
+        if (gap < 0) {
+            throw new IllegalArgumentException("the gap must be non negative");
+        }
+        this.absoluteGap = gap;
+        return this;
+    }
+    /**
+     * Makes the solver stop as soon as the gap between the best proved upper bound
+     * and the value of the incumbent, relative to the magnitude of the latter, drops
+     * to the given value. This method must be called before the solver is started.
+     * 
+     * @param gap the largest relative gap which is good enough (e.g. 0.01 for 1%)
+     * @return this solver
+     */
+    public ParallelSolver<T> withRelativeGap(final double gap) {
+        if (gap < 0) {
+            throw new IllegalArgumentException("the gap must be non negative");
+        }
+        this.relativeGap = gap;
+        return this;
+    }
+
+    /**
+     * Bounds the duration of the search. This method must be called before the
+     * solver is started.
+     * 
+     * @param duration the maximum duration of the search
+     * @param unit the unit of that duration
+     * @return this solver
+     */
+    public ParallelSolver<T> withTimeLimit(final long duration, final TimeUnit unit) {
+        if (duration < 0) {
+            throw new IllegalArgumentException("the time limit must be non negative");
+        }
+        this.timeLimit = unit.toNanos(duration);
+        return this;
+    }
+    /**
+     * Bounds the number of nodes which are explored. This method must be called 
+     * before the solver is started.
+     * 
+     * # Note:
+     * The threads check the limit before they pop a node. Hence, up to one node 
+     * per thread may be explored beyond the limit.
+     * 
+     * @param nodes the maximum number of nodes to explore
+     * @return this solver
+     */
+    public ParallelSolver<T> withNodeLimit(final long nodes) {
+        if (nodes < 0) {
+            throw new IllegalArgumentException("the node limit must be non negative");
+        }
+        this.nodeLimit = nodes;
+        return this;
+    }
+    /**
+     * Makes the solver stop as soon as the heap usage exceeds the given ceiling.
+     * This method must be called before the solver is started.
+     * 
+     * # Note:
+     * The heap usage is the amount of memory the jvm has reserved but which is 
+     * not free. It also counts the garbage which has not been collected yet. 
+     * Hence, the ceiling should be comfortably below the maximum heap size.
+     * 
+     * @param bytes the maximum number of bytes of heap which may be in use
+     * @return this solver
+     */
+    public ParallelSolver<T> withMemoryLimit(final long bytes) {
+        if (bytes < 0) {
+            throw new IllegalArgumentException("the memory limit must be non negative");
+        }
+        this.memoryLimit = bytes;
+        return this;
+    }
+    /**
+     * Cancels the search. The threads stop at the latest when the layer they are 
+     * expanding is done. This method may be called from any thread at any time.
+     */
+    public void cancel() {
+        termination.compareAndSet(null, Termination.Cancelled);
+    }
+
+    @Override
+    public void addListener(final SolutionListener listener) {
+        listeners.add(listener);
+    }
+    @Override
+    public void removeListener(final SolutionListener listener) {
+        listeners.remove(listener);
     }
 
     @Override
     public void maximize() {
+        metrics.start();
+        deadline = System.nanoTime() + timeLimit;
+        notifier = Executors.newSingleThreadExecutor(r -> {
+            final Thread thread = new Thread(r, "ddo4j-listeners");
+            thread.setDaemon(true);
+            return thread;
+        });
         initialize();
+        rampUp();
 
         Thread[] workers = new Thread[shared.nbThreads];
         for (int i = 0; i < shared.nbThreads; i++) {
@@ -63,7 +407,7 @@ public final class ParallelSolver<T> implements Solver {
             workers[i] = new Thread() {
                 @Override
                 public void run() {
-                    DecisionDiagram<T> mdd = new LinkedDecisionDiagram<>();
+                    LinkedDecisionDiagram<T> mdd = new LinkedDecisionDiagram<>();
                     while (true) {
                         Workload<T> wl = getWorkload(threadId);
                         switch (wl.status) {
@@ -72,7 +416,7 @@ public final class ParallelSolver<T> implements Solver {
                             case Starvation:
                                 continue;
                             case WorkItem:
-                                processOneNode(wl.subProblem, mdd);
+                                processOneNode(threadId, wl.subProblem, mdd);
                                 notifyNodeFinished(threadId);
                                 break;
                         }
@@ -85,40 +429,66 @@ public final class ParallelSolver<T> implements Solver {
         for (int i = 0; i < shared.nbThreads; i++) {
             try { workers[i].join(); } catch (InterruptedException e) {}
         }
+
+        final ExecutorService out = notifier;
+        notifier = null;
+        out.shutdown();
+        try { out.awaitTermination(Long.MAX_VALUE, TimeUnit.NANOSECONDS); } catch (InterruptedException e) {}
     }
     @Override
     public Optional<Integer> bestValue() {
-        synchronized (critical) {
-            if (critical.bestSol.isPresent()) {
-                return Optional.of(critical.bestLB);
-            } else {
-                return Optional.empty();
-            }
+        Incumbent best = shared.incumbent.get();
+        if (best.solution.isPresent()) {
+            return Optional.of(best.value);
+        } else {
+            return Optional.empty();
         }
     }
     @Override
     public Optional<Set<Decision>> bestSolution() {
-        synchronized (critical) {
-            return critical.bestSol;
-        }
+        return shared.incumbent.get().solution;
     }
     /** @return the number of nodes that have been explored */
     public int explored() {
+        if (stealing != null) {
+            return stealing.explored.intValue();
+        }
         synchronized (critical) {
             return critical.explored;
         }
     }
     /** @return best known lower bound so far */
     public int lowerBound() {
-        synchronized (critical) {
-            return critical.bestLB;
-        }
+        return bestLB();
     }
     /** @return best known upper bound so far */
     public int upperBound() {
-        synchronized (critical) {
-            return critical.bestUB;
-        }
+        return bestUB();
+    }
+    /** 
+     * @return a snapshot of the incumbent and of the best known upper bound. This 
+     *   method may be called at any time, including while the solver is running.
+     */
+    public SolverProgress progress() {
+        final Incumbent best = shared.incumbent.get();
+        final int ub         = bestUB();
+        return new SolverProgress(best.value, ub, best.solution, explored(), metrics.elapsed(), termination());
+    }
+    /** @return why the solver has stopped (empty as long as it is running) */
+    public Optional<Termination> termination() {
+        return Optional.ofNullable(termination.get());
+    }
+    /** @return true iff the solver stopped before the search was complete */
+    public boolean isStopped() {
+        final Termination reason = termination.get();
+        return reason != null && reason != Termination.Optimal;
+    }
+    /** 
+     * @return a snapshot of the statistics of the solver. This method may be called
+     *   at any time, including while the solver is running.
+     */
+    public SolverStatistics statistics() {
+        return new SolverStatistics(metrics.snapshot(), metrics.elapsed(), queued());
     }
 
     /** @return the root subproblem */
@@ -127,26 +497,73 @@ public final class ParallelSolver<T> implements Solver {
             shared.problem.intialState(), 
             shared.problem.initialValue(), 
             Integer.MAX_VALUE, 
-            Collections.emptySet());
+            DecisionPath.empty());
     }
     /** Utility method to initialize the solver structure */
     private void initialize() {
+        if (stealing != null) {
+            stealing.pending.set(1);
+            stealing.frontiers[0].push(root());
+            stealing.sizes.set(0, 1);
+            return;
+        }
         synchronized (critical) {
             critical.frontier.push(root());
         }
     }
+    /**
+     * Processes the subproblems one at a time, expanding the layers of each
+     * diagram in parallel, until there are enough subproblems in the frontier
+     * to keep all threads busy (or until the problem is solved).
+     */
+    private void rampUp() {
+        if (!parallelRampUp || shared.nbThreads < 2) {
+            return;
+        }
+        final ForkJoinPool pool = new ForkJoinPool(shared.nbThreads);
+        try {
+            final LinkedDecisionDiagram<T> mdd = new LinkedDecisionDiagram<>(pool);
+            while (queued() < shared.nbThreads) {
+                Workload<T> wl = getWorkload(0);
+                if (wl.status != WorkloadStatus.WorkItem) {
+                    return;
+                }
+                processOneNode(0, wl.subProblem, mdd);
+                notifyNodeFinished(0);
+            }
+        } finally {
+            pool.shutdown();
+        }
+    }
+    /** @return the number of subproblems waiting in the frontier(s) */
+    private int queued() {
+        if (stealing != null) {
+            int total = 0;
+            for (int i = 0; i < shared.nbThreads; i++) {
+                total += stealing.sizes.get(i);
+            }
+            return total;
+        }
+        synchronized (critical) {
+            return critical.frontier.size();
+        }
+    }
     /** 
      * This method processes one node from the solver frontier. 
      * 
      * This is typically the method you are searching for if you are searching after an implementation
      * of the branch and bound with mdd algo.
      */
-    private void processOneNode(final SubProblem<T> sub, final DecisionDiagram<T> mdd) {
+    private void processOneNode(final int threadId, final SubProblem<T> sub, final LinkedDecisionDiagram<T> mdd) {
         // 1. RESTRICTION
         int nodeUB = sub.getUpperBound();
-        int bestLB = bestLB();
 
-        if (nodeUB <= bestLB) {
+        if (nodeUB <= bestLB()) {
+            metrics.add(threadId, Counter.PRUNED, 1);
+            return;
+        }
+        if (visited != null && !visited.visit(sub.getState(), sub.getValue())) {
+            metrics.add(threadId, Counter.SKIPPED, 1);
             return;
         }
 
@@ -160,78 +577,306 @@ public final class ParallelSolver<T> implements Solver {
             sub,
             width,
             //
-            bestLB
-        );
+            bestLB()
+        )
+        .withBestLB(liveLB)
+        .withDominance(dominance)
+        .withClustering(clustering)
+        .withCancellation(interrupted);
 
-        mdd.compile(compilation);
+        compile(threadId, mdd, compilation);
         maybeUpdateBest(mdd);
-        if (mdd.isExact()) {
+        if (mdd.isExact() || mdd.isCancelled()) {
             return;
         }
 
         // 2. RELAXATION
-        bestLB = bestLB();
-        compilation = new CompilationInput<>(
-            CompilationType.Relaxed,
-            shared.problem,
-            shared.relax,
-            shared.varh,
-            shared.ranking,
-            sub,
-            width,
-            //
-            bestLB
-        );
-        mdd.compile(compilation);
+        if (nodeUB <= bestLB()) {
+            return;
+        }
+        compilation = compilation.withCompilationType(CompilationType.Relaxed);
+        compile(threadId, mdd, compilation);
         if (mdd.isExact()) {
             maybeUpdateBest(mdd);
         } else {
-            enqueueCutset(mdd);
+            enqueueCutset(threadId, mdd);
         }
     }
 
-    /** @return the current best known lower bound */
+    /** Compiles the given mdd while keeping track of the work being done */
+    private void compile(final int threadId, final LinkedDecisionDiagram<T> mdd, final CompilationInput<T> compilation) {
+        final Object event = events != null ? events.beginCompilation() : null;
+        final long   start = System.nanoTime();
+        mdd.compile(compilation);
+        final long   nanos = System.nanoTime() - start;
+
+        if (compilation.getCompilationType() == CompilationType.Restricted) {
+            metrics.add(threadId, Counter.RESTRICTED, 1);
+            metrics.add(threadId, Counter.RESTRICTED_NANOS, nanos);
+        } else {
+            metrics.add(threadId, Counter.RELAXED, 1);
+            metrics.add(threadId, Counter.RELAXED_NANOS, nanos);
+        }
+        metrics.add(threadId, Counter.LAYERS,       mdd.nbLayers());
+        metrics.add(threadId, Counter.LAYERS_WIDTH, mdd.totalWidth());
+        metrics.add(threadId, Counter.MERGED,       mdd.nbMerged());
+        metrics.max(threadId, Counter.PEAK_LAYER_WIDTH, mdd.peakWidth());
+        if (event != null) {
+            events.endCompilation(event, 
+                compilation.getCompilationType().name(), 
+                compilation.getMaxWidth(), 
+                mdd.nbLayers(), 
+                mdd.peakWidth(), 
+                mdd.nbMerged(), 
+                mdd.isExact());
+        }
+    }
+    /** 
+     * @return the current best known lower bound
+     * 
+     * # Note:
+     * This method never blocks: the incumbent is published through an atomic 
+     * reference which can be read without entering the critical section.
+     */
     private int bestLB() {
-        synchronized (critical) {
-            return critical.bestLB;
+        return shared.incumbent.get().value;
+    }
+    /**
+     * @return the best known upper bound on the value of any solution. It is the 
+     *   greatest bound of the subproblems which might still be open (that is, of
+     *   the last subproblem popped by each thread) or the best known lower bound
+     *   when that one is greater.
+     *
+     * # Note:
+     * The bound which is actually returned is the smallest one ever computed.
+     * Indeed, all these bounds are valid, but two threads may race and compute 
+     * them in a different order.
+     *
+     * # Note:
+     * In shared mode, the bound is never computed here: it is refreshed within
+     * the critical section each time it changes (see `refreshUB()`). Hence this
+     * method never takes the lock of the critical section.
+     */
+    private int bestUB() {
+        if (stealing == null) {
+            return Math.max(shared.bestUB.get(), bestLB());
+        }
+        final int ub = Math.max(stealing.upperBound(), bestLB());
+        return shared.bestUB.accumulateAndGet(ub, Math::min);
+    }
+    /** 
+     * Refreshes the best known upper bound after the last node popped by some 
+     * thread has changed. This must be called from within the critical section.
+     */
+    private void refreshUB() {
+        final int ub = Math.max(critical.upperBound(), bestLB());
+        shared.bestUB.accumulateAndGet(ub, Math::min);
+    }
+    /**
+     * @return true iff no more node must be handed out, which happens when the
+     *   solver was stopped, when a budget is exhausted or when the gap between 
+     *   the bounds is small enough.
+     */
+    private boolean mustStop() {
+        if (mustInterrupt()) {
+            return true;
+        }
+        if (nodeLimit >= 0 && metrics.total(Counter.POPPED) >= nodeLimit) {
+            return stop(Termination.NodeLimit);
+        }
+        if (absoluteGap < 0 && relativeGap < 0) {
+            return false;
+        }
+        final Incumbent best = shared.incumbent.get();
+        if (!best.solution.isPresent()) {
+            return false;
+        }
+        final long gap = (long) bestUB() - best.value;
+        if (gap <= absoluteGap || SolverProgress.relativeGap(gap, best.value) <= relativeGap) {
+            return stop(Termination.GapReached);
+        }
+        return false;
+    }
+    /** 
+     * @return true iff the ongoing compilations must be given up, which happens 
+     *   when the solver was stopped, when the time is up or when the heap usage
+     *   is too high.
+     */
+    private boolean mustInterrupt() {
+        if (termination.get() != null) {
+            return true;
+        }
+        if (timeLimit >= 0 && System.nanoTime() - deadline >= 0) {
+            return stop(Termination.TimeLimit);
+        }
+        if (memoryLimit >= 0) {
+            final Runtime rt = Runtime.getRuntime();
+            if (rt.totalMemory() - rt.freeMemory() > memoryLimit) {
+                return stop(Termination.MemoryLimit);
+            }
+        }
+        return false;
+    }
+    /** 
+     * Stops the solver for the given reason (unless it was already stopped)
+     * @return true
+     */
+    private boolean stop(final Termination reason) {
+        termination.compareAndSet(null, reason);
+        return true;
+    }
+    /** 
+     * Records that the search is complete. The best known lower bound is then 
+     * proved optimal, unless the solver was stopped meanwhile: some open nodes
+     * might then have been given up.
+     */
+    private void complete() {
+        if (termination.compareAndSet(null, Termination.Optimal)) {
+            shared.bestUB.set(bestLB());
         }
     }
     /**
      * This private method updates the shared best known node and lower bound in
      * case the best value of the current `mdd` expansion improves the current
      * bounds.
+     * 
+     * # Note:
+     * The incumbent is improved with a compare-and-set loop. Hence, this method
+     * never contends with the threads pushing to or popping from the frontier,
+     * except when the incumbent actually improves: the frontier(s) are then 
+     * pruned from the nodes which have become useless.
      */
     private void maybeUpdateBest(final DecisionDiagram<T> mdd) {
-        synchronized (critical) {
-            Optional<Integer> ddval = mdd.bestValue();
+        Optional<Integer> ddval = mdd.bestValue();
+        if (!ddval.isPresent()) {
+            return;
+        }
+
+        int value = ddval.get();
+        Incumbent current = shared.incumbent.get();
+        if (value <= current.value) {
+            return;
+        }
 
-            if( ddval.isPresent() && ddval.get() > critical.bestLB) {
-                critical.bestLB = ddval.get();
-                critical.bestSol= mdd.bestSolution();
+        Incumbent improved = new Incumbent(value, mdd.bestSolution());
+        while (value > current.value) {
+            if (shared.incumbent.compareAndSet(current, improved)) {
+                publish(improved);
+                pruneFrontiers(value);
+                return;
+            }
+            current = shared.incumbent.get();
+        }
+    }
+    /** Hands the given improvement of the incumbent over to the thread which notifies the listeners */
+    private void publish(final Incumbent incumbent) {
+        final ExecutorService out = notifier;
+        if (out == null || listeners.isEmpty()) {
+            return;
+        }
+        final long timestamp = System.currentTimeMillis();
+        out.execute(() -> notifyListeners(incumbent, timestamp));
+    }
+    /** 
+     * Notifies all listeners of the given improvement of the incumbent 
+     * 
+     * # Note:
+     * Two threads may improve the incumbent one after the other, but publish the
+     * improvements in the reverse order. An improvement which is not better than
+     * the last one to be notified is hence dropped: it has been superseded.
+     */
+    private void notifyListeners(final Incumbent incumbent, final long timestamp) {
+        if (incumbent.value <= notified) {
+            return;
+        }
+        notified = incumbent.value;
+        final Set<Decision> solution = incumbent.solution.get();
+        for (SolutionListener listener : listeners) {
+            try {
+                listener.improved(incumbent.value, solution, timestamp);
+            } catch (RuntimeException e) {
+                // a failing listener must neither go unnoticed nor deprive the others of the notification
+                final Thread thread = Thread.currentThread();
+                thread.getUncaughtExceptionHandler().uncaughtException(thread, e);
             }
         }
     }
+    /** Eagerly removes the nodes which cannot improve the given lower bound from the frontier(s) */
+    private void pruneFrontiers(final int bestLB) {
+        if (stealing != null) {
+            stealing.prune(bestLB);
+            return;
+        }
+        if (critical.concurrent) {
+            critical.frontier.prune(bestLB);
+            return;
+        }
+        synchronized (critical) {
+            critical.frontier.prune(bestLB);
+        }
+    }
     /**
      * If necessary, thightens the bound of nodes in the cutset of `mdd` and
-     * then add the relevant nodes to the shared fringe.
+     * then add the relevant nodes to the shared fringe (or to the local 
+     * frontier of the thread in work stealing mode).
      */
-    private void enqueueCutset(final DecisionDiagram<T> mdd) {
-        synchronized (critical) {
-            int bestLB = critical.bestLB;
-            Iterator<SubProblem<T>> cutset = mdd.exactCutset();
-            while (cutset.hasNext()) {
-                SubProblem<T> cutsetNode = cutset.next();
-                if (cutsetNode.getUpperBound() > bestLB) {
-                    critical.frontier.push(cutsetNode);
-                }
+    private void enqueueCutset(final int threadId, final LinkedDecisionDiagram<T> mdd) {
+        if (mdd.isCancelled()) {
+            // a cancelled compilation leaves no cutset: this is not to be counted as one
+            return;
+        }
+        int bestLB = bestLB();
+        int pushed;
+        int size;
+        if (stealing != null) {
+            pushed = stealing.enqueueCutset(threadId, mdd, bestLB);
+            size   = queued();
+        } else if (critical.concurrent) {
+            // the nodes become visible to the other threads before this one 
+            // notifies that it has finished processing its node
+            pushed = pushCutset(mdd, bestLB);
+            size   = critical.frontier.size();
+        } else {
+            final long start = System.nanoTime();
+            synchronized (critical) {
+                metrics.add(threadId, Counter.LOCK_WAIT_NANOS, System.nanoTime() - start);
+                pushed = pushCutset(mdd, bestLB);
+                size   = critical.frontier.size();
+            }
+        }
+        metrics.add(threadId, Counter.CUTSETS, 1);
+        metrics.add(threadId, Counter.CUTSET_NODES, pushed);
+        metrics.max(threadId, Counter.PEAK_FRONTIER, size);
+        if (events != null) {
+            events.frontier(pushed, size);
+        }
+    }
+    /** 
+     * Pushes the nodes of the cutset of `mdd` which can improve bestLB onto the shared frontier 
+     * @return the number of nodes which have been pushed
+     */
+    private int pushCutset(final DecisionDiagram<T> mdd, final int bestLB) {
+        int pushed = 0;
+        Iterator<SubProblem<T>> cutset = mdd.exactCutset();
+        while (cutset.hasNext()) {
+            SubProblem<T> cutsetNode = cutset.next();
+            if (cutsetNode.getUpperBound() > bestLB) {
+                critical.frontier.push(cutsetNode);
+                pushed += 1;
             }
         }
+        return pushed;
     }
     /** Acknowledges that a thread finished processing its node. */
     private void notifyNodeFinished(final int threadId) {
+        if (stealing != null) {
+            stealing.pending.decrementAndGet();
+            return;
+        }
+        final long start = System.nanoTime();
         synchronized (critical) {
+            metrics.add(threadId, Counter.LOCK_WAIT_NANOS, System.nanoTime() - start);
             critical.ongoing -= 1;
-            critical.upperBounds[threadId] = Integer.MAX_VALUE;
             critical.notifyAll();
         }
     }
@@ -247,25 +892,40 @@ public final class ParallelSolver<T> implements Solver {
      *     process.
      */
     private Workload<T> getWorkload(int threadId) {
+        // Is the solution good enough ?
+        if (mustStop()) {
+            return new Workload<>(WorkloadStatus.Complete, null);
+        }
+        if (stealing != null) {
+            return getLocalWorkload(threadId);
+        }
+        final long start = System.nanoTime();
         synchronized (critical) {
+            metrics.add(threadId, Counter.LOCK_WAIT_NANOS, System.nanoTime() - start);
             // Are we done ?
             if (critical.ongoing == 0 && critical.frontier.isEmpty()) {
-                critical.bestUB = critical.bestLB;
+                complete();
                 return new Workload<>(WorkloadStatus.Complete, null);
             }
             // Nothing to do yet ? => Wait for someone to post jobs
             if (critical.frontier.isEmpty()) {
-                try { critical.wait(); } catch (InterruptedException e) {}
+                idle(threadId);
                 return new Workload<>(WorkloadStatus.Starvation, null);
             }
             // Nothing relevant ? =>  Wait for someone to post jobs
             SubProblem<T> nn = critical.frontier.pop();
-            if (nn.getUpperBound() <= critical.bestLB) {
-                critical.frontier.clear();
+            if (nn == null || nn.getUpperBound() <= bestLB()) {
+                // Note: a concurrent frontier might have received better nodes in the meantime
+                if (critical.concurrent) {
+                    critical.frontier.prune(bestLB());
+                } else {
+                    critical.frontier.clear();
+                }
                 if (critical.ongoing == 0) {
+                    complete();
                     return new Workload<>(WorkloadStatus.Complete, null);
                 } else {
-                    try { critical.wait(); } catch (InterruptedException e) {}
+                    idle(threadId);
                     return new Workload<>(WorkloadStatus.Starvation, null);
                 }
             }
@@ -274,10 +934,53 @@ public final class ParallelSolver<T> implements Solver {
             critical.ongoing += 1;
             critical.explored += 1;
             critical.upperBounds[threadId] = nn.getUpperBound();
+            refreshUB();
+            metrics.add(threadId, Counter.POPPED, 1);
 
             return new Workload<>(WorkloadStatus.WorkItem, nn);
         }
     }
+    /** Waits (within the critical section) until some other thread posts jobs */
+    private void idle(final int threadId) {
+        // the frontier is empty: all the open subproblems are being processed
+        critical.upperBounds[threadId] = Integer.MIN_VALUE;
+        refreshUB();
+        final long start = System.nanoTime();
+        try { critical.wait(); } catch (InterruptedException e) {}
+        metrics.add(threadId, Counter.IDLE_NANOS, System.nanoTime() - start);
+    }
+
+    /**
+     * Fetches a workload in work stealing mode. The thread first tries to pop a
+     * subproblem from its own frontier. When the latter has run dry, it attempts
+     * to steal the most promising subproblem of one of its peers. The problem is 
+     * solved when no subproblem remains pending (neither in a frontier nor
+     * being processed).
+     */
+    private Workload<T> getLocalWorkload(int threadId) {
+        final WorkStealing<T> ws = stealing;
+        SubProblem<T> nn = ws.pop(threadId, bestLB());
+        if (nn == null) {
+            nn = ws.steal(threadId, bestLB());
+        }
+        if (nn != null) {
+            ws.busy(threadId);
+            ws.explored.increment();
+            metrics.add(threadId, Counter.POPPED, 1);
+            return new Workload<>(WorkloadStatus.WorkItem, nn);
+        }
+        // Are we done ?
+        if (ws.pending.get() == 0) {
+            complete();
+            return new Workload<>(WorkloadStatus.Complete, null);
+        }
+        // Nothing to do yet ? => Wait for someone to post jobs
+        final long nanos = ws.idle(threadId);
+        final long start = System.nanoTime();
+        LockSupport.parkNanos(nanos);
+        metrics.add(threadId, Counter.IDLE_NANOS, System.nanoTime() - start);
+        return new Workload<>(WorkloadStatus.Starvation, null);
+    }
 
     /** The status of when a workload is retrieved */
     private static enum WorkloadStatus {
@@ -321,6 +1024,14 @@ public final class ParallelSolver<T> implements Solver {
         private final WidthHeuristic<T> width;
         /** An heuristic to chose the next variable to branch on when developing a DD */
         private final VariableHeuristic<T> varh;
+        /** 
+         * The best known solution and its value (the best known lower bound). It is
+         * published atomically so that it can be read and improved without ever 
+         * entering the critical section.
+         */
+        private final AtomicReference<Incumbent> incumbent;
+        /** The best known upper bound (it only ever decreases) */
+        private final AtomicInteger bestUB;
 
         public Shared(
             final int nbThreads, 
@@ -336,6 +1047,375 @@ public final class ParallelSolver<T> implements Solver {
             this.varh      = varh;
             this.ranking   = ranking;
             this.width     = width;
+            this.incumbent = new AtomicReference<>(new Incumbent(Integer.MIN_VALUE, Optional.empty()));
+            this.bestUB    = new AtomicInteger(Integer.MAX_VALUE);
+        }
+    }
+    /** An immutable snapshot of the best known solution and of its value */
+    private static final class Incumbent {
+        /** This is the value of the best known lower bound. */
+        final int value;
+        /** If set, this keeps the info about the best solution so far. */
+        final Optional<Set<Decision>> solution;
+
+        public Incumbent(final int value, final Optional<Set<Decision>> solution) {
+            this.value    = value;
+            this.solution = solution;
+        }
+    }
+    /**
+     * The local frontiers of the threads when the solver runs in work stealing 
+     * mode. Each frontier is protected by its own lock: the owner of a frontier
+     * is the only thread to push nodes onto it, but any thread may pop from it.
+     */
+    private static final class WorkStealing<T> {
+        /** The local frontier of each thread */
+        private final Frontier<T>[] frontiers;
+        /** The locks protecting each of the local frontiers */
+        private final ReentrantLock[] locks;
+        /** 
+         * The size of each of the local frontiers. These are only hints which
+         * let the thieves skip the empty frontiers without acquiring their lock.
+         */
+        private final AtomicIntegerArray sizes;
+        /**
+         * This is the termination detector: it counts the subproblems which have 
+         * been pushed onto a frontier and are not completely processed yet.
+         *
+         * # Note
+         * A subproblem is only considered processed once its cutset has been pushed.
+         * Hence, the counter can only reach zero when all threads are idle and all 
+         * frontiers are empty, which is when the problem is solved.
+         */
+        private final AtomicLong pending;
+        /** The number of nodes that have been popped for processing */
+        private final LongAdder explored;
+        /** The upper bound of the last subproblem popped by each thread */
+        private final AtomicIntegerArray upperBounds;
+        /** 
+         * The number of subproblems which have been stolen. It lets the readers of 
+         * the upper bounds detect that a subproblem moved from one thread to the 
+         * other while they were reading.
+         */
+        private final AtomicLong steals;
+        /** 
+         * How long each thread waits the next time it finds no work. This doubles 
+         * each time the thread remains idle (so that it does not burn a core while
+         * spinning), and it is reset as soon as the thread finds work again. Each 
+         * entry is only ever accessed by its own thread.
+         */
+        private final long[] backoff;
+        /** The counters of each thread */
+        private final Metrics metrics;
+
+        public WorkStealing(final int nbThreads, final Supplier<Frontier<T>> factory, final Metrics metrics) {
+            this.frontiers = GenericArrays.newArray(Frontier.class, nbThreads);
+            this.locks     = new ReentrantLock[nbThreads];
+            this.sizes     = new AtomicIntegerArray(nbThreads);
+            this.pending   = new AtomicLong(0);
+            this.explored    = new LongAdder();
+            this.upperBounds = new AtomicIntegerArray(nbThreads);
+            this.steals      = new AtomicLong(0);
+            this.backoff     = new long[nbThreads];
+            this.metrics     = metrics;
+            for (int i = 0; i < nbThreads; i++) {
+                frontiers[i]  = factory.get();
+                locks[i]      = new ReentrantLock();
+                backoff[i]    = IDLE_NANOS;
+                upperBounds.set(i, Integer.MIN_VALUE);
+            }
+        }
+
+        /** 
+         * Pushes the relevant nodes of the exact cutset of `mdd` onto the local
+         * frontier of the given thread.
+         * 
+         * @return the number of nodes which have been pushed
+         */
+        public int enqueueCutset(final int threadId, final DecisionDiagram<T> mdd, final int bestLB) {
+            final Iterator<SubProblem<T>> cutset = mdd.exactCutset();
+            final Frontier<T> frontier = frontiers[threadId];
+            final ReentrantLock lock   = locks[threadId];
+            acquire(threadId, lock);
+            try {
+                final int before = frontier.size();
+                int pushed       = 0;
+                while (cutset.hasNext()) {
+                    SubProblem<T> cutsetNode = cutset.next();
+                    if (cutsetNode.getUpperBound() > bestLB) {
+                        frontier.push(cutsetNode);
+                        pushed += 1;
+                    }
+                }
+                // The pending count must be raised before the lock is released: this 
+                // guarantees that no thief can complete one of these nodes beforehand.
+                // (A frontier may merge a pushed node with one it already holds, hence
+                // only the growth of the frontier is accounted for)
+                pending.addAndGet(frontier.size() - before);
+                sizes.lazySet(threadId, frontier.size());
+                return pushed;
+            } finally {
+                lock.unlock();
+            }
+        }
+        /**
+         * Removes the nodes which cannot improve the given lower bound from all
+         * the local frontiers.
+         */
+        public void prune(final int bestLB) {
+            for (int i = 0; i < frontiers.length; i++) {
+                if (sizes.get(i) == 0) {
+                    continue;
+                }
+                locks[i].lock();
+                try {
+                    final int before = frontiers[i].size();
+                    frontiers[i].prune(bestLB);
+                    final int after  = frontiers[i].size();
+                    pending.addAndGet(after - before);
+                    sizes.lazySet(i, after);
+                } finally {
+                    locks[i].unlock();
+                }
+            }
+        }
+        /**
+         * Tries to steal the most promising subproblem of one of the peers of the
+         * given thread. 
+         * 
+         * @return the stolen subproblem or null if none could be stolen
+         */
+        public SubProblem<T> steal(final int threadId, final int bestLB) {
+            final int n = frontiers.length;
+            for (int i = 1; i < n; i++) {
+                final int victim = (threadId + i) % n;
+                if (sizes.get(victim) == 0 || !locks[victim].tryLock()) {
+                    continue;
+                }
+                try {
+                    SubProblem<T> nn = popLocked(threadId, victim, bestLB);
+                    if (nn != null) {
+                        return nn;
+                    }
+                } finally {
+                    locks[victim].unlock();
+                }
+            }
+            return null;
+        }
+        /** 
+         * Pops the most promising subproblem from the frontier of the given victim
+         * 
+         * @return the popped subproblem or null if none could be popped
+         */
+        public SubProblem<T> pop(final int victim, final int bestLB) {
+            if (sizes.get(victim) == 0) {
+                return null;
+            }
+            acquire(victim, locks[victim]);
+            try {
+                return popLocked(victim, victim, bestLB);
+            } finally {
+                locks[victim].unlock();
+            }
+        }
+        /** Acquires the given lock on behalf of the given thread (and records how long it waited) */
+        private void acquire(final int threadId, final ReentrantLock lock) {
+            if (lock.tryLock()) {
+                return;
+            }
+            final long start = System.nanoTime();
+            lock.lock();
+            metrics.add(threadId, Counter.LOCK_WAIT_NANOS, System.nanoTime() - start);
+        }
+        /** 
+         * Tells that the given thread is idle: its own frontier is empty and it
+         * could not steal anything
+         *
+         * @return how long (in nanoseconds) the thread should wait before it 
+         *   tries to find work again
+         */
+        public long idle(final int threadId) {
+            upperBounds.set(threadId, Integer.MIN_VALUE);
+            final long nanos  = backoff[threadId];
+            backoff[threadId] = Math.min(2 * nanos, MAX_IDLE_NANOS);
+            return nanos;
+        }
+        /** Tells that the given thread has found work (it will wait briefly the next time it is idle) */
+        public void busy(final int threadId) {
+            backoff[threadId] = IDLE_NANOS;
+        }
+        /**
+         * @return the greatest upper bound of the last subproblems popped by the
+         *   threads (or Integer.MAX_VALUE when the root is still in a frontier).
+         *
+         * # Note:
+         * The subproblems a thread pushes onto its frontier never have a greater 
+         * bound than the last subproblem it popped. And the thread only pops a 
+         * subproblem of lower bound when the pushed ones have been popped or 
+         * stolen (in which case the thief remembers their bound). This is why 
+         * the bounds must be read again when a steal happened meanwhile.
+         */
+        public int upperBound() {
+            if (explored.sum() == 0) {
+                return Integer.MAX_VALUE;
+            }
+            while (true) {
+                final long version = steals.get();
+                int ub = Integer.MIN_VALUE;
+                for (int i = 0; i < upperBounds.length(); i++) {
+                    ub = Math.max(ub, upperBounds.get(i));
+                }
+                if (version == steals.get()) {
+                    return ub;
+                }
+            }
+        }
+        /**
+         * Pops (on behalf of the given thread) the most promising subproblem of 
+         * the frontier of the given victim whose lock must be held by the caller.
+         * 
+         * # Note:
+         * A frontier pops its nodes in descending upper bound order. Hence, when 
+         * the popped node cannot improve the best known solution, none of the 
+         * remaining nodes of that frontier can either and the frontier is cleared.
+         */
+        private SubProblem<T> popLocked(final int threadId, final int victim, final int bestLB) {
+            final Frontier<T> frontier = frontiers[victim];
+            SubProblem<T> nn = frontier.pop();
+            if (nn != null && nn.getUpperBound() <= bestLB) {
+                pending.addAndGet(-(1 + frontier.size()));
+                frontier.clear();
+                nn = null;
+            }
+            if (nn != null) {
+                upperBounds.set(threadId, nn.getUpperBound());
+                if (threadId != victim) {
+                    steals.incrementAndGet();
+                }
+            }
+            sizes.lazySet(victim, frontier.size());
+            return nn;
+        }
+    }
+    /**
+     * The counters of the solver. Each thread owns a row of cells which only it
+     * updates: the counters are maintained without any atomic read-modify-write
+     * (hence at almost no cost) and yet they can be read by any other thread at
+     * any time. The rows are padded so that two threads never update counters 
+     * which share a cache line.
+     */
+    private static final class Metrics {
+        /** The distance between the rows of two threads */
+        private static final int STRIDE = ((Counter.values().length + 7) / 8 + 1) * 8;
+
+        /** The number of threads */
+        private final int nbThreads;
+        /** The counters of all threads */
+        private final AtomicLongArray cells;
+        /** The time when the solver was started */
+        private volatile long start;
+
+        public Metrics(final int nbThreads) {
+            this.nbThreads = nbThreads;
+            this.cells     = new AtomicLongArray(nbThreads * STRIDE);
+            this.start     = System.nanoTime();
+        }
+        /** Remembers that the solver has just been started */
+        public void start() {
+            this.start = System.nanoTime();
+        }
+        /** @return the time (in nanoseconds) elapsed since the solver was started */
+        public long elapsed() {
+            return System.nanoTime() - start;
+        }
+        /** Adds delta to the given counter of the given thread (which must be the calling thread) */
+        public void add(final int threadId, final Counter counter, final long delta) {
+            final int cell = threadId * STRIDE + counter.ordinal();
+            cells.lazySet(cell, cells.get(cell) + delta);
+        }
+        /** Raises the given peak counter of the given thread (which must be the calling thread) */
+        public void max(final int threadId, final Counter counter, final long value) {
+            final int cell = threadId * STRIDE + counter.ordinal();
+            if (value > cells.get(cell)) {
+                cells.lazySet(cell, value);
+            }
+        }
+        /** @return the total of the given counter over all threads */
+        public long total(final Counter counter) {
+            long total = 0;
+            for (int t = 0; t < nbThreads; t++) {
+                total += cells.get(t * STRIDE + counter.ordinal());
+            }
+            return total;
+        }
+        /** @return the current value of each counter of each thread */
+        public long[][] snapshot() {
+            final Counter[] counters = Counter.values();
+            final long[][] values    = new long[nbThreads][counters.length];
+            for (int t = 0; t < nbThreads; t++) {
+                for (int c = 0; c < counters.length; c++) {
+                    values[t][c] = cells.get(t * STRIDE + c);
+                }
+            }
+            return values;
+        }
+    }
+    /**
+     * A bounded and thread safe cache which associates the states of the explored
+     * subproblems with the length of the longest path that was known to lead to 
+     * them. The cache is split in independently locked segments, each of which 
+     * forgets its least recently visited states when it is full.
+     */
+    private static final class VisitedStates<T> {
+        /** The maximum number of segments */
+        private static final int MAX_SEGMENTS = 16;
+        /** The segments of the cache */
+        private final Segment<T>[] segments;
+
+        public VisitedStates(final int capacity) {
+            if (capacity < 1) {
+                throw new IllegalArgumentException("the capacity must be positive " + capacity);
+            }
+            final int n   = Math.min(MAX_SEGMENTS, capacity);
+            this.segments = GenericArrays.newArray(Segment.class, n);
+            for (int i = 0; i < n; i++) {
+                segments[i] = new Segment<>((capacity + n - 1) / n);
+            }
+        }
+        /**
+         * Records the visit of a subproblem
+         * 
+         * @param state the state of the subproblem
+         * @param value the length of the longest path to the subproblem
+         * @return true iff the subproblem must be explored. That is, when its
+         *   state has not been visited with a path at least as long before.
+         */
+        public boolean visit(final T state, final int value) {
+            final Segment<T> segment = segments[Hashing.index(state, segments.length)];
+            synchronized (segment) {
+                final Integer known = segment.get(state);
+                if (known != null && known >= value) {
+                    return false;
+                }
+                segment.put(state, value);
+                return true;
+            }
+        }
+    }
+    /** A segment of the cache of visited states: a map in lru order with a bounded size */
+    private static final class Segment<T> extends LinkedHashMap<T, Integer> {
+        private static final long serialVersionUID = 1L;
+        /** The maximum number of states in this segment */
+        private final int capacity;
+
+        public Segment(final int capacity) {
+            super(16, 0.75f, true);
+            this.capacity = capacity;
+        }
+        @Override
+        protected boolean removeEldestEntry(final Map.Entry<T, Integer> eldest) {
+            return size() > capacity;
         }
     }
     /** The shared data that may only be manipulated within critical sections */
@@ -353,14 +1433,19 @@ public final class ParallelSolver<T> implements Solver {
          * lower bound is popped.
          */
         private final Frontier<T> frontier;
+        /** 
+         * True iff the frontier is thread safe. In that case, the nodes are pushed
+         * onto the frontier without entering the critical section.
+         */
+        private final boolean concurrent;
         /**
-         * This vector is used to store the upper bound on the node which is
-         * currently processed by each thread.
+         * This vector is used to store the upper bound on the last node which 
+         * was popped by each thread.
          *
          * # Note
-         * When a thread is idle (or more generally when it is done with processing
-         * it node), it should place the value i32::min_value() in its corresponding
-         * cell.
+         * A thread keeps that bound once it is done processing its node: the bound
+         * covers the nodes of the cutset it has pushed. When a thread is idle (the
+         * frontier is empty), it places the value Integer.MIN_VALUE in its cell.
          */
         final int[] upperBounds;
         /**
@@ -380,25 +1465,28 @@ public final class ParallelSolver<T> implements Solver {
          * the fringe, and for which a restricted and relaxed mdd have been developed.
          */
         int explored;
-        /** This is the value of the best known lower bound. */
-        int bestLB;
-        /**
-         * This is the value of the best known lower bound.
-         * *WARNING* This one only gets set when the interrupt condition is satisfied
-         */
-        int bestUB;
-        /** If set, this keeps the info about the best solution so far. */
-        Optional<Set<Decision>> bestSol;
 
         public Critical(final int nbThreads, final Frontier<T> frontier) {
             this.frontier    = frontier;
+            this.concurrent  = frontier instanceof ConcurrentFrontier;
             this.ongoing     = 0;
             this.explored    = 0;
-            this.bestLB      = Integer.MIN_VALUE;
-            this.bestUB      = Integer.MAX_VALUE;
             this.upperBounds = new int[nbThreads];
-            this.bestSol     = Optional.empty();
-            for (int i = 0; i < nbThreads; i++) { upperBounds[i] = Integer.MAX_VALUE; }
+            for (int i = 0; i < nbThreads; i++) { upperBounds[i] = Integer.MIN_VALUE; }
+        }
+        /** 
+         * @return the greatest upper bound of the last nodes popped by the threads
+         *   (or Integer.MAX_VALUE when the root has not been popped yet)
+         */
+        int upperBound() {
+            if (explored == 0) {
+                return Integer.MAX_VALUE;
+            }
+            int ub = Integer.MIN_VALUE;
+            for (int i = 0; i < upperBounds.length; i++) {
+                ub = Math.max(ub, upperBounds[i]);
+            }
+            return ub;
         }
     }
 }
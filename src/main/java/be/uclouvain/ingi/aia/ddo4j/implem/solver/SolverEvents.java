@@ -0,0 +1,22 @@
+package be.uclouvain.ingi.aia.ddo4j.implem.solver;
+
+/**
+ * The events a solver emits (when it is asked to) about the work it does. The
+ * events are handed out as plain objects so that the implementations are free
+ * to use whatever api they need without the solver having to refer to it.
+ */
+interface SolverEvents {
+    /** @return a new compilation event whose timing starts now */
+    Object beginCompilation();
+    /** Ends the timing of the given compilation event and commits it */
+    void endCompilation(
+        final Object event,
+        final String type,
+        final int width,
+        final int layers,
+        final int peakWidth,
+        final int merged,
+        final boolean exact);
+    /** Emits an event telling the size of the frontier after a cutset was enqueued */
+    void frontier(final int cutset, final int size);
+}
@@ -0,0 +1,123 @@
+package be.uclouvain.ingi.aia.ddo4j.implem.solver;
+
+import java.util.Optional;
+import java.util.Set;
+
+import be.uclouvain.ingi.aia.ddo4j.core.Decision;
+
+/**
+ * An immutable snapshot of the progress of a solver: the best solution it has
+ * found so far (the incumbent) along with the best upper bound it has proved
+ * so far. The gap between these two bounds tells how far (at most) the incumbent
+ * is from the optimum. A snapshot can be taken at any time, even while the
+ * solver is running.
+ */
+public final class SolverProgress {
+    /** The value of the incumbent (Integer.MIN_VALUE when there is none) */
+    private final int lowerBound;
+    /** The best proved upper bound on the value of any solution */
+    private final int upperBound;
+    /** The incumbent solution (if any) */
+    private final Optional<Set<Decision>> solution;
+    /** The number of subproblems that have been explored */
+    private final int explored;
+    /** The time (in nanoseconds) elapsed since the solver was started */
+    private final long elapsedNanos;
+    /** Why the solver has stopped (empty as long as it is running) */
+    private final Optional<Termination> termination;
+
+    /**
+     * Creates a new snapshot
+     *
+     * @param lowerBound the value of the incumbent
+     * @param upperBound the best proved upper bound
+     * @param solution the incumbent solution (if any)
+     * @param explored the number of subproblems that have been explored
+     * @param elapsedNanos the time elapsed since the solver was started
+     * @param termination why the solver has stopped (if it has)
+     */
+    SolverProgress(
+        final int lowerBound,
+        final int upperBound,
+        final Optional<Set<Decision>> solution,
+        final int explored,
+        final long elapsedNanos,
+        final Optional<Termination> termination)
+    {
+        this.lowerBound   = lowerBound;
+        this.upperBound   = upperBound;
+        this.solution     = solution;
+        this.explored     = explored;
+        this.elapsedNanos = elapsedNanos;
+        this.termination  = termination;
+    }
+
+    /** @return the value of the incumbent (Integer.MIN_VALUE when there is none) */
+    public int lowerBound() {
+        return lowerBound;
+    }
+    /** @return the best proved upper bound on the value of any solution */
+    public int upperBound() {
+        return upperBound;
+    }
+    /** @return the value of the incumbent (if any) */
+    public Optional<Integer> bestValue() {
+        return solution.isPresent() ? Optional.of(lowerBound) : Optional.empty();
+    }
+    /** @return the incumbent solution (if any) */
+    public Optional<Set<Decision>> bestSolution() {
+        return solution;
+    }
+    /** @return the number of subproblems that have been explored */
+    public int explored() {
+        return explored;
+    }
+    /** @return the time (in nanoseconds) elapsed since the solver was started */
+    public long elapsedNanos() {
+        return elapsedNanos;
+    }
+    /**
+     * @return the absolute gap between the bounds: by how much (at most) the
+     *   incumbent could still be improved. Long.MAX_VALUE when there is no incumbent.
+     */
+    public long gap() {
+        if (!solution.isPresent()) {
+            return Long.MAX_VALUE;
+        }
+        return (long) upperBound - lowerBound;
+    }
+    /**
+     * @return the relative gap between the bounds, that is the absolute gap divided by
+     *   the magnitude of the incumbent value (0 when the incumbent is proved optimal,
+     *   and positive infinity when there is no incumbent or when its value is zero).
+     */
+    public double relativeGap() {
+        return relativeGap(gap(), lowerBound);
+    }
+    /** @return why the solver has stopped (empty as long as it is running) */
+    public Optional<Termination> termination() {
+        return termination;
+    }
+    /** @return true iff the incumbent is proved to be optimal */
+    public boolean isOptimal() {
+        return gap() == 0;
+    }
+
+    /** @return the gap divided by the magnitude of the given incumbent value */
+    static double relativeGap(final long gap, final int lowerBound) {
+        if (gap == 0) {
+            return 0.0;
+        }
+        if (gap == Long.MAX_VALUE || lowerBound == 0) {
+            return Double.POSITIVE_INFINITY;
+        }
+        return gap / Math.abs((double) lowerBound);
+    }
+
+    @Override
+    public String toString() {
+        return String.format("lb=%d ub=%d gap=%d (%.4f%%) explored=%d elapsed=%.3fs status=%s",
+            lowerBound, upperBound, gap(), 100 * relativeGap(), explored, elapsedNanos / 1e9, 
+            termination.map(Termination::name).orElse("Running"));
+    }
+}
@@ -0,0 +1,135 @@
+package be.uclouvain.ingi.aia.ddo4j.implem.solver;
+
+/**
+ * An immutable snapshot of the statistics of a solver. It tells, for each of
+ * the threads of the solver, how much work of each kind it has done and how
+ * long it has spent doing it. A snapshot can be taken at any time, even while
+ * the solver is running: taking snapshots at regular intervals shows how the
+ * search evolves over time (for instance, how the frontier grows and shrinks).
+ *
+ * # Note:
+ * The counters of a running solver are read without synchronization. Hence, the
+ * counters of one snapshot might not all be taken at the very same instant.
+ */
+public final class SolverStatistics {
+    /** The counters maintained by each thread of the solver */
+    public static enum Counter {
+        /** The number of subproblems popped from the frontier */
+        POPPED(false),
+        /** The number of popped subproblems which were pruned by their bound before being compiled */
+        PRUNED(false),
+        /** The number of popped subproblems which were skipped because their state had already been visited */
+        SKIPPED(false),
+        /** The number of restricted compilations */
+        RESTRICTED(false),
+        /** The time (in nanoseconds) spent compiling restricted decision diagrams */
+        RESTRICTED_NANOS(false),
+        /** The number of relaxed compilations */
+        RELAXED(false),
+        /** The time (in nanoseconds) spent compiling relaxed decision diagrams */
+        RELAXED_NANOS(false),
+        /** The number of layers which have been expanded */
+        LAYERS(false),
+        /** The sum of the widths of the layers which have been expanded */
+        LAYERS_WIDTH(false),
+        /** The width of the widest layer (before it was shrunk) */
+        PEAK_LAYER_WIDTH(true),
+        /** The number of nodes which have been merged by relaxations */
+        MERGED(false),
+        /** The number of cutsets which have been enqueued */
+        CUTSETS(false),
+        /** The number of cutset nodes which have been pushed onto the frontier */
+        CUTSET_NODES(false),
+        /** The largest size of the frontier seen right after a cutset was enqueued */
+        PEAK_FRONTIER(true),
+        /** The time (in nanoseconds) spent waiting to acquire a lock */
+        LOCK_WAIT_NANOS(false),
+        /** The time (in nanoseconds) spent waiting for some work to do */
+        IDLE_NANOS(false);
+
+        /** True iff the counter records a peak (maximum) rather than a total */
+        final boolean peak;
+
+        private Counter(final boolean peak) {
+            this.peak = peak;
+        }
+        /** @return true iff the counter records a peak (maximum) rather than a total */
+        public boolean isPeak() {
+            return peak;
+        }
+    }
+
+    /** The value of each counter of each thread */
+    private final long[][] values;
+    /** The time (in nanoseconds) elapsed since the solver was started */
+    private final long elapsedNanos;
+    /** The size of the frontier when the snapshot was taken */
+    private final int frontierSize;
+
+    /**
+     * Creates a new snapshot
+     *
+     * @param values the value of each counter of each thread
+     * @param elapsedNanos the time elapsed since the solver was started
+     * @param frontierSize the size of the frontier when the snapshot was taken
+     */
+    SolverStatistics(final long[][] values, final long elapsedNanos, final int frontierSize) {
+        this.values       = values;
+        this.elapsedNanos = elapsedNanos;
+        this.frontierSize = frontierSize;
+    }
+
+    /** @return the number of threads of the solver */
+    public int nbThreads() {
+        return values.length;
+    }
+    /**
+     * @param thread the identifier of a thread (0 .. nbThreads-1)
+     * @param counter a counter
+     * @return the value of the counter for the given thread
+     */
+    public long get(final int thread, final Counter counter) {
+        return values[thread][counter.ordinal()];
+    }
+    /**
+     * @param counter a counter
+     * @return the value of the counter for the whole solver: the total over all
+     *   threads or the highest peak of all threads
+     */
+    public long get(final Counter counter) {
+        long result = 0;
+        for (long[] thread : values) {
+            final long value = thread[counter.ordinal()];
+            result = counter.peak ? Math.max(result, value) : result + value;
+        }
+        return result;
+    }
+    /** @return the time (in nanoseconds) elapsed since the solver was started */
+    public long elapsedNanos() {
+        return elapsedNanos;
+    }
+    /** @return the size of the frontier when the snapshot was taken */
+    public int frontierSize() {
+        return frontierSize;
+    }
+
+    @Override
+    public String toString() {
+        final StringBuilder out = new StringBuilder();
+        out.append(String.format("%-18s %14s", "counter", "total"));
+        for (int t = 0; t < values.length; t++) {
+            out.append(String.format(" %14s", "thread " + t));
+        }
+        out.append('\n');
+        for (Counter counter : Counter.values()) {
+            out.append(String.format("%-18s %14d", counter.name().toLowerCase(), get(counter)));
+            for (int t = 0; t < values.length; t++) {
+                out.append(String.format(" %14d", get(t, counter)));
+            }
+            out.append('\n');
+        }
+        out.append(String.format("%-18s %14d%n", "elapsed_nanos", elapsedNanos));
+        out.append(String.format("%-18s %14d%n", "frontier_size", frontierSize));
+        return out.toString();
+    }
+}
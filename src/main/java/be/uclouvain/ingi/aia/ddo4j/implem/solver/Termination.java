@@ -0,0 +1,21 @@
+package be.uclouvain.ingi.aia.ddo4j.implem.solver;
+
+/**
+ * The reason why a solver has stopped. Unless the search was complete (Optimal),
+ * the incumbent is not proved optimal: the gap between its value and the best
+ * proved upper bound tells how far it might be from the optimum.
+ */
+public enum Termination {
+    /** The search is complete: the incumbent (if any) is proved optimal */
+    Optimal,
+    /** The gap between the bounds dropped below the requested threshold */
+    GapReached,
+    /** The wall clock time limit was reached */
+    TimeLimit,
+    /** The maximum number of explored nodes was reached */
+    NodeLimit,
+    /** The heap usage exceeded the requested ceiling */
+    MemoryLimit,
+    /** The search was cancelled by the user */
+    Cancelled,
+}
@@ -0,0 +1,24 @@
+package be.uclouvain.ingi.aia.ddo4j.implem.utils;
+
+import java.lang.reflect.Array;
+
+/**
+ * Creates the arrays of generic types, which the language does not let one 
+ * create directly (`new Bucket<T>[n]` does not compile).
+ */
+public final class GenericArrays {
+    /** This class only has static methods */
+    private GenericArrays() {}
+
+    /**
+     * Creates a new array
+     *
+     * @param component the (raw) class of the elements of the array
+     * @param length the length of the array
+     * @return a new array of the given length whose elements are all null
+     */
+    @SuppressWarnings("unchecked")
+    public static <E> E[] newArray(final Class<?> component, final int length) {
+        return (E[]) Array.newInstance(component, length);
+    }
+}
@@ -0,0 +1,33 @@
+package be.uclouvain.ingi.aia.ddo4j.implem.utils;
+
+/**
+ * The hash functions used by the hash tables and striped structures of the
+ * implementations. 
+ *
+ * # Note:
+ * The hash codes of the user defined states are often poorly distributed (for
+ * instance, they are small consecutive integers). This is why they are spread
+ * with a multiplicative (Fibonacci) hash before their low bits are used to pick
+ * a slot or a stripe.
+ */
+public final class Hashing {
+    /** The multiplier of the Fibonacci hash (2^32 divided by the golden ratio) */
+    private static final int GOLDEN_RATIO = 0x9E3779B9;
+
+    /** This class only has static methods */
+    private Hashing() {}
+
+    /** @return a well spread hash of the given integer */
+    public static int spread(final int h) {
+        final int x = h * GOLDEN_RATIO;
+        return x ^ (x >>> 16);
+    }
+    /** @return a well spread hash of the given object */
+    public static int hash(final Object o) {
+        return spread(o.hashCode());
+    }
+    /** @return the index (in [0, length)) of the stripe or segment where the given object belongs */
+    public static int index(final Object o, final int length) {
+        return (hash(o) & Integer.MAX_VALUE) % length;
+    }
+}
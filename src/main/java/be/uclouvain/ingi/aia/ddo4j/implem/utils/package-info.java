@@ -0,0 +1,5 @@
+/**
+ * This package contains the small helpers which are shared by the various
+ * implementations (hash spreading, creation of generic arrays).
+ */
+package be.uclouvain.ingi.aia.ddo4j.implem.utils;
@@ -4,14 +4,18 @@ import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Iterator;
 import java.util.List;
-import java.util.Set;
+import java.util.function.IntConsumer;
 
 import be.uclouvain.ingi.aia.ddo4j.core.Decision;
+import be.uclouvain.ingi.aia.ddo4j.core.DominanceChecker;
 import be.uclouvain.ingi.aia.ddo4j.core.Problem;
 import be.uclouvain.ingi.aia.ddo4j.core.Relaxation;
+import be.uclouvain.ingi.aia.ddo4j.core.Solver;
+import be.uclouvain.ingi.aia.ddo4j.core.VarSet;
 import be.uclouvain.ingi.aia.ddo4j.heuristics.StateRanking;
 import be.uclouvain.ingi.aia.ddo4j.heuristics.VariableHeuristic;
 import be.uclouvain.ingi.aia.ddo4j.heuristics.WidthHeuristic;
+import be.uclouvain.ingi.aia.ddo4j.implem.frontier.DominanceFrontier;
 import be.uclouvain.ingi.aia.ddo4j.implem.frontier.NoDuplicateFrontier;
 import be.uclouvain.ingi.aia.ddo4j.implem.frontier.SimpleFrontier;
 import be.uclouvain.ingi.aia.ddo4j.implem.heuristics.DefaultVariableHeuristic;
@@ -32,20 +36,23 @@ public final class Knapsack {
      * as the library uses these methods to reconcile equal states
      * 
      * Note 2: 
-     * This class is actually not useful in the context of the knapsack. It is
-     * only present to show that a state can be any POJO provided that you use
-     * a class that correctly overrides equals and hashcode.
+     * This class shows that a state can be any POJO provided that you use
+     * a class that correctly overrides equals and hashcode. The depth (number 
+     * of items that have been considered) is part of the state so that two 
+     * subproblems having the same state are truly equivalent.
      */
     private static class KPState {
         private int capacity;
+        private int depth;
 
-        public KPState(final int capacity) {
+        public KPState(final int capacity, final int depth) {
             this.capacity = capacity;
+            this.depth    = depth;
         }
 
         @Override
         public int hashCode() {
-            return capacity;
+            return 31 * capacity + depth;
         }
         @Override
         public boolean equals(final Object o) {
@@ -53,7 +60,7 @@ public final class Knapsack {
                 return false;
             } else {
                 KPState that = (KPState) o;
-                return this.capacity == that.capacity;
+                return this.capacity == that.capacity && this.depth == that.depth;
             }
         }
     }
@@ -73,11 +80,24 @@ public final class Knapsack {
         private static final List<Integer> DOM_YES_NO = Arrays.asList(YES, NO);
         
         /** cost of takin each item */
-        private final int[] cost  = new int[]{ 95,  4, 60, 32, 23, 72, 80, 62, 65, 46};
+        private final int[] cost;
         /** benefit of takin each item */
-        private final int[] value = new int[]{ 55, 10, 47,  5,  4, 50,  8, 61, 85, 87};
+        private final int[] value;
         /** capacity of the sack */
-        private final int capacity= 269;
+        private final int capacity;
+
+        /** Creates the fixed instance */
+        public KPProblem() {
+            this(new int[]{ 95,  4, 60, 32, 23, 72, 80, 62, 65, 46}, 
+                 new int[]{ 55, 10, 47,  5,  4, 50,  8, 61, 85, 87}, 
+                 269);
+        }
+        /** Creates an arbitrary instance */
+        public KPProblem(final int[] cost, final int[] value, final int capacity) {
+            this.cost     = cost;
+            this.value    = value;
+            this.capacity = capacity;
+        }
 
         @Override
         public int nbVars() {
@@ -86,7 +106,7 @@ public final class Knapsack {
 
         @Override
         public KPState intialState() {
-            return new KPState(capacity);
+            return new KPState(capacity, 0);
         }
 
         @Override
@@ -103,9 +123,18 @@ public final class Knapsack {
             }
         }
 
+        @Override
+        public void domain(final KPState state, final int var, final IntConsumer action) {
+            // you could chose to either pick the item in the sack or leave it out
+            if (state.capacity >= cost[var]) {
+                action.accept(YES);
+            }
+            action.accept(NO);
+        }
+
         @Override
         public KPState transition(final KPState state, final Decision decision) {
-            return new KPState(state.capacity - (decision.val() * cost[decision.var()]));
+            return new KPState(state.capacity - (decision.val() * cost[decision.var()]), state.depth + 1);
         }
 
         @Override
@@ -125,11 +154,13 @@ public final class Knapsack {
         @Override
         public KPState mergeStates(final Iterator<KPState> states) {
             int merged = Integer.MIN_VALUE;
+            int depth  = 0;
             while (states.hasNext()) {
                 KPState next = states.next();
                 merged = Math.max(next.capacity, merged);
+                depth  = next.depth;
             }
-            return new KPState(merged);
+            return new KPState(merged, depth);
         }
 
         @Override
@@ -138,15 +169,36 @@ public final class Knapsack {
         }
 
         @Override
-        public int fastUpperBound(final KPState state, final Set<Integer> variables) {
+        public int fastUpperBound(final KPState state, final VarSet variables) {
             int tot = 0;
-            for (int i : variables) {
+            for (int i = variables.nextVar(0); i >= 0; i = variables.nextVar(i + 1)) {
                 tot += problem.value[i];
             }
             return tot;
         }
     }
 
+    /** 
+     * A state dominates the other states having the same depth and less remaining
+     * capacity: any item that fits in the smaller capacity also fits in the larger.
+     *
+     * # Note:
+     * Since the key is the depth, a whole layer falls in one single group. Comparing
+     * all the nodes of a group pairwise would cost O(w^2) per layer of width w; this
+     * is why the diagram and the dominance frontier only compare each node with a
+     * bounded number of (the most valuable, resp. most recent) nodes of its group.
+     */
+    private static final class KPDominance implements DominanceChecker<KPState, Integer> {
+        @Override
+        public Integer dominanceKey(final KPState state) {
+            return state.depth;
+        }
+        @Override
+        public boolean dominates(final KPState a, final KPState b) {
+            return a.capacity >= b.capacity;
+        }
+    }
+
     /** An ordering on the states to determine what is the most promising stuff */
     private static final class KPRanking implements StateRanking<KPState> {
         @Override
@@ -157,13 +209,48 @@ public final class Knapsack {
 
     /** The exemple entry point */
     public static void main(final String[] args) {
-        KPProblem problem               = new KPProblem();
+        ParallelSolver<KPState> solver = solver(new KPProblem(), Runtime.getRuntime().availableProcessors(), true);
+        solver.maximize();
+
+        System.out.println("Explored = " + solver.explored());
+        
+        int bestValue = solver.bestValue().get();
+        System.out.println("best value = " + bestValue);
+        
+        // Because I want to read the solution with the decision oredered by variable
+        ArrayList<Decision> solution = new ArrayList<>();
+        solution.addAll(solver.bestSolution().get());
+        solution.sort((a, b) -> a.var() - b.var());
+        for (Decision d : solution) {
+            System.out.println("x_" + d.var() + " = " + d.val());
+        }
+    }
+
+    /**
+     * Creates a solver for an arbitrary knapsack instance
+     *
+     * @param cost the cost of taking each item
+     * @param value the benefit of taking each item
+     * @param capacity the capacity of the sack
+     * @param nbThreads the number of threads used by the solver
+     * @param useDominance whether the dominance relation is used to discard the dominated subproblems
+     * @return a solver for the given instance
+     */
+    static Solver solver(final int[] cost, final int[] value, final int capacity, final int nbThreads, final boolean useDominance) {
+        return solver(new KPProblem(cost, value, capacity), nbThreads, useDominance);
+    }
+    /** @return a solver for the given instance which uses the dominance relation or not */
+    private static ParallelSolver<KPState> solver(final KPProblem problem, final int nbThreads, final boolean useDominance) {
         KPRelax relax                   = new KPRelax(problem);
         KPRanking ranking               = new KPRanking();
+        KPDominance dominance           = new KPDominance();
         VariableHeuristic<KPState> varh = new DefaultVariableHeuristic<>();
         WidthHeuristic<KPState> width   = new FixedWidth<>(2);
+        if (!useDominance) {
+            return new ParallelSolver<>(nbThreads, problem, relax, varh, ranking, width, new SimpleFrontier<>(ranking));
+        }
         ParallelSolver<KPState> solver  = new ParallelSolver<>(
-            Runtime.getRuntime().availableProcessors(), 
+            nbThreads, 
             problem, 
             relax, 
             varh, 
@@ -174,21 +261,13 @@ public final class Knapsack {
             // you like. But for a first example, it is maybe better to
             // simply stick to the SimpleFrontier as shown below.
             // new NoDuplicateFrontier<>(ranking));
-            new SimpleFrontier<>(ranking));
+            // Here, the dominance relation lets the frontier discard the 
+            // subproblems that are dominated by another one.
+            new DominanceFrontier<>(new SimpleFrontier<>(ranking), dominance));
         
-        solver.maximize();
-
-        System.out.println("Explored = " + solver.explored());
-        
-        int bestValue = solver.bestValue().get();
-        System.out.println("best value = " + bestValue);
-        
-        // Because I want to read the solution with the decision oredered by variable
-        ArrayList<Decision> solution = new ArrayList<>();
-        solution.addAll(solver.bestSolution().get());
-        solution.sort((a, b) -> a.var() - b.var());
-        for (Decision d : solution) {
-            System.out.println("x_" + d.var() + " = " + d.val());
-        }
+        // The dominance relation is also used to discard the dominated nodes
+        // of each layer while compiling the decision diagrams.
+        solver.withDominance(dominance);
+        return solver;
     }
 }
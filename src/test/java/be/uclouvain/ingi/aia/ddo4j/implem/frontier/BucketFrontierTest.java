@@ -0,0 +1,107 @@
+package be.uclouvain.ingi.aia.ddo4j.implem.frontier;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.util.HashSet;
+import java.util.Random;
+import java.util.Set;
+
+import org.junit.Test;
+
+import be.uclouvain.ingi.aia.ddo4j.core.DecisionPath;
+import be.uclouvain.ingi.aia.ddo4j.core.Frontier;
+import be.uclouvain.ingi.aia.ddo4j.core.SubProblem;
+
+/**
+ * Checks the BucketFrontier against a SimpleFrontier on random sequences of
+ * pushes, pops and prunes. Since the bucket frontier ignores the state ranking,
+ * only the upper bounds of the popped subproblems are compared.
+ */
+public class BucketFrontierTest {
+    /** The number of operations of each random sequence */
+    private static final int NB_OPS = 5_000;
+
+    /**
+     * Both frontiers undergo the same random operations: they must always have
+     * the same size and pop the subproblems in the same upper bound order.
+     */
+    @Test
+    public void randomOperationsFollowTheUpperBoundOrder() {
+        final Random rnd = new Random(1);
+        for (int it = 0; it < 100; it++) {
+            // few distinct bounds fill the buckets, many of them grow the heap and the table
+            final int range = 1 + rnd.nextInt(it % 2 == 0 ? 20 : 100_000);
+            final Frontier<Integer> bucket = new BucketFrontier<>();
+            final Frontier<Integer> oracle = new SimpleFrontier<>(Integer::compare);
+            final Set<Integer> open = new HashSet<>();
+            final int[] ubs = new int[NB_OPS];
+            for (int id = 0; id < NB_OPS; id++) {
+                final int r = rnd.nextInt(20);
+                if (r < 12) {
+                    ubs[id] = rnd.nextInt(range) - range / 2;
+                    final SubProblem<Integer> sub = sub(id, ubs[id]);
+                    bucket.push(sub);
+                    oracle.push(sub);
+                    open.add(id);
+                } else if (r < 19) {
+                    pop(bucket, oracle, open);
+                } else {
+                    final int lb = rnd.nextInt(range) - range / 2;
+                    bucket.prune(lb);
+                    oracle.prune(lb);
+                    open.removeIf(id2 -> ubs[id2] <= lb);
+                }
+                assertEquals(oracle.size(), bucket.size());
+            }
+            while (!oracle.isEmpty()) {
+                pop(bucket, oracle, open);
+            }
+            assertTrue("lost " + open, open.isEmpty());
+            assertEquals(0, bucket.size());
+            assertNull(bucket.pop());
+        }
+    }
+
+    /** A cleared frontier is empty and can be reused */
+    @Test
+    public void clearEmptiesTheFrontier() {
+        final Frontier<Integer> bucket = new BucketFrontier<>();
+        final Frontier<Integer> oracle = new SimpleFrontier<>(Integer::compare);
+        for (int id = 0; id < 1000; id++) {
+            bucket.push(sub(id, id % 37));
+        }
+        bucket.clear();
+        assertEquals(0, bucket.size());
+        assertNull(bucket.pop());
+
+        final Set<Integer> open = new HashSet<>();
+        for (int id = 0; id < 1000; id++) {
+            final SubProblem<Integer> sub = sub(id, id % 41);
+            bucket.push(sub);
+            oracle.push(sub);
+            open.add(id);
+        }
+        while (!oracle.isEmpty()) {
+            pop(bucket, oracle, open);
+        }
+        assertTrue("lost " + open, open.isEmpty());
+    }
+
+    /** Pops one subproblem from both frontiers and checks they agree */
+    private static void pop(final Frontier<Integer> bucket, final Frontier<Integer> oracle, final Set<Integer> open) {
+        final SubProblem<Integer> expected = oracle.pop();
+        final SubProblem<Integer> actual   = bucket.pop();
+        if (expected == null) {
+            assertNull(actual);
+        } else {
+            assertEquals(expected.getUpperBound(), actual.getUpperBound());
+            assertTrue("lost or duplicate " + actual.getState(), open.remove(actual.getState()));
+        }
+    }
+    /** @return a subproblem for the given state */
+    private static SubProblem<Integer> sub(final int state, final int ub) {
+        return new SubProblem<>(state, 0, ub, DecisionPath.empty());
+    }
+}
@@ -0,0 +1,248 @@
+package be.uclouvain.ingi.aia.ddo4j.implem.frontier;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+import org.junit.After;
+import org.junit.Test;
+
+import be.uclouvain.ingi.aia.ddo4j.core.DecisionPath;
+import be.uclouvain.ingi.aia.ddo4j.core.SubProblem;
+
+/**
+ * Hammers the ConcurrentNoDuplicateFrontier with several threads pushing, popping
+ * and pruning at once, and checks that no state is ever lost nor duplicated.
+ */
+public class ConcurrentNoDuplicateFrontierTest {
+    /** The number of threads working on the frontier concurrently */
+    private static final int NB_THREADS = 8;
+    /** The number of distinct states */
+    private static final int NB_STATES = 20_000;
+    /** The number of stripes of the tested frontier (few, so that the threads contend) */
+    private static final int NB_STRIPES = 4;
+
+    /** The threads working on the frontier */
+    private final ExecutorService pool = Executors.newFixedThreadPool(NB_THREADS);
+
+    @After
+    public void tearDown() {
+        pool.shutdownNow();
+    }
+
+    /**
+     * Each state is pushed several times (by different threads). Once drained,
+     * the frontier must have yielded each state exactly once, with its best value
+     * and greatest upper bound.
+     */
+    @Test
+    public void concurrentPushesMergeTheDuplicates() throws Exception {
+        final ConcurrentNoDuplicateFrontier<Integer> frontier = newFrontier();
+        final int copies = 4;
+        run(thread -> {
+            final Random rnd = new Random(thread);
+            for (int s = 0; s < NB_STATES; s++) {
+                for (int k = 0; k < copies; k++) {
+                    if ((s + k) % NB_THREADS == thread) {
+                        frontier.push(sub(s, value(s, k), ub(s, k)));
+                    }
+                }
+                if (rnd.nextInt(1000) == 0) {
+                    Thread.yield();
+                }
+            }
+        });
+        assertEquals(NB_STATES, frontier.size());
+
+        final AtomicReferenceArray<SubProblem<Integer>> subs = new AtomicReferenceArray<>(NB_STATES);
+        final AtomicIntegerArray popped = drain(frontier, subs);
+        for (int s = 0; s < NB_STATES; s++) {
+            assertEquals("state " + s, 1, popped.get(s));
+            int bestValue = Integer.MIN_VALUE;
+            int bestUb    = Integer.MIN_VALUE;
+            for (int k = 0; k < copies; k++) {
+                bestValue = Math.max(bestValue, value(s, k));
+                bestUb    = Math.max(bestUb, ub(s, k));
+            }
+            assertEquals("value of state " + s, bestValue, subs.get(s).getValue());
+            assertEquals("ub of state " + s, bestUb, subs.get(s).getUpperBound());
+        }
+        assertEquals(0, frontier.size());
+        assertNull(frontier.pop());
+    }
+
+    /**
+     * Each state is pushed once while other threads pop concurrently. Every state
+     * must be popped exactly once, either while the pushes are ongoing or afterwards.
+     */
+    @Test
+    public void concurrentPushesAndPopsLoseNothing() throws Exception {
+        final ConcurrentNoDuplicateFrontier<Integer> frontier = newFrontier();
+        final AtomicIntegerArray popped = new AtomicIntegerArray(NB_STATES);
+        run(thread -> {
+            if (thread % 2 == 0) {
+                for (int s = thread / 2; s < NB_STATES; s += NB_THREADS / 2) {
+                    frontier.push(sub(s, s, s));
+                }
+            } else {
+                for (int i = 0; i < NB_STATES / NB_THREADS; i++) {
+                    final SubProblem<Integer> sub = frontier.pop();
+                    if (sub != null) {
+                        popped.incrementAndGet(sub.getState());
+                    }
+                }
+            }
+        });
+        final AtomicIntegerArray remaining = drain(frontier, null);
+        for (int s = 0; s < NB_STATES; s++) {
+            assertEquals("state " + s, 1, popped.get(s) + remaining.get(s));
+        }
+        assertEquals(0, frontier.size());
+    }
+
+    /**
+     * Each state is pushed once while other threads prune the frontier with an
+     * increasing lower bound. After a final prune, the frontier must hold exactly
+     * the states whose upper bound exceeds the final lower bound.
+     */
+    @Test
+    public void concurrentPushesAndPrunesKeepTheRelevantStates() throws Exception {
+        final ConcurrentNoDuplicateFrontier<Integer> frontier = newFrontier();
+        final int lb = NB_STATES / 2;
+        run(thread -> {
+            if (thread % 4 != 3) {
+                for (int s = thread; s < NB_STATES; s += NB_THREADS) {
+                    frontier.push(sub(s, 0, s));
+                }
+            } else {
+                for (int bound = 0; bound <= lb; bound += 16) {
+                    frontier.prune(bound);
+                }
+            }
+            // the states of the pruning threads are pushed last
+            if (thread % 4 == 3) {
+                for (int s = thread; s < NB_STATES; s += NB_THREADS) {
+                    frontier.push(sub(s, 0, s));
+                }
+            }
+        });
+        frontier.prune(lb);
+        assertEquals(NB_STATES - lb - 1, frontier.size());
+
+        final AtomicIntegerArray popped = drain(frontier, null);
+        for (int s = 0; s < NB_STATES; s++) {
+            assertEquals("state " + s, s > lb ? 1 : 0, popped.get(s));
+        }
+        assertEquals(0, frontier.size());
+    }
+
+    /**
+     * One thread keeps popping the most promising state and pushing it back, while
+     * the other threads keep improving that very state (which merges it). No pop
+     * may ever return a less promising state: the merged state is always open.
+     */
+    @Test
+    public void mergesNeverHideTheMostPromisingState() throws Exception {
+        final ConcurrentNoDuplicateFrontier<Integer> frontier = newFrontier();
+        final int top    = NB_STATES;
+        final int nbPops = 200_000;
+        for (int s = 0; s < NB_STATES; s++) {
+            frontier.push(sub(s, 0, s));
+        }
+        frontier.push(sub(top, 0, top));
+
+        final AtomicInteger values = new AtomicInteger(0);
+        final AtomicBoolean done   = new AtomicBoolean(false);
+        run(thread -> {
+            if (thread == 0) {
+                try {
+                    for (int i = 0; i < nbPops; i++) {
+                        final SubProblem<Integer> sub = frontier.pop();
+                        assertEquals("pop " + i, top, sub.getUpperBound());
+                        frontier.push(sub);
+                    }
+                } finally {
+                    done.set(true);
+                }
+            } else {
+                while (!done.get()) {
+                    frontier.push(sub(top, values.incrementAndGet(), top));
+                }
+            }
+        });
+    }
+
+    /** @return a fresh frontier ordering the states in ascending order */
+    private static ConcurrentNoDuplicateFrontier<Integer> newFrontier() {
+        return new ConcurrentNoDuplicateFrontier<>(Integer::compare, NB_STRIPES);
+    }
+    /** @return a subproblem for the given state */
+    private static SubProblem<Integer> sub(final int state, final int value, final int ub) {
+        return new SubProblem<>(state, value, ub, DecisionPath.empty());
+    }
+    /** @return the value of the k-th copy of the given state */
+    private static int value(final int state, final int k) {
+        return (state * 31 + k * 17) % 100;
+    }
+    /** @return the upper bound of the k-th copy of the given state */
+    private static int ub(final int state, final int k) {
+        return 100 + (state * 7 + k * 13) % 100;
+    }
+
+    /**
+     * Pops all the subproblems of the frontier with all the threads at once
+     *
+     * @param frontier the frontier to drain
+     * @param subs where to store the subproblem popped for each state (may be null)
+     * @return the number of times each state has been popped
+     */
+    private AtomicIntegerArray drain(
+        final ConcurrentNoDuplicateFrontier<Integer> frontier, 
+        final AtomicReferenceArray<SubProblem<Integer>> subs) throws Exception 
+    {
+        final AtomicIntegerArray popped = new AtomicIntegerArray(NB_STATES);
+        run(thread -> {
+            SubProblem<Integer> sub;
+            while ((sub = frontier.pop()) != null) {
+                popped.incrementAndGet(sub.getState());
+                if (subs != null) {
+                    subs.set(sub.getState(), sub);
+                }
+            }
+        });
+        return popped;
+    }
+    /** Runs the given task on all threads at once and waits for them to complete */
+    private void run(final Task task) throws Exception {
+        final CyclicBarrier start = new CyclicBarrier(NB_THREADS);
+        final List<Future<Void>> futures = new ArrayList<>();
+        for (int i = 0; i < NB_THREADS; i++) {
+            final int thread = i;
+            futures.add(pool.submit((Callable<Void>) () -> {
+                start.await();
+                task.run(thread);
+                return null;
+            }));
+        }
+        for (Future<Void> future : futures) {
+            future.get();
+        }
+    }
+
+    /** Something to be done by one of the threads */
+    private interface Task {
+        void run(final int thread) throws Exception;
+    }
+}
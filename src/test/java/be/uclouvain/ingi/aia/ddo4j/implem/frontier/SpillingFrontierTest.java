@@ -0,0 +1,201 @@
+package be.uclouvain.ingi.aia.ddo4j.implem.frontier;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.HashSet;
+import java.util.Random;
+import java.util.Set;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import be.uclouvain.ingi.aia.ddo4j.core.DecisionPath;
+import be.uclouvain.ingi.aia.ddo4j.core.Frontier;
+import be.uclouvain.ingi.aia.ddo4j.core.SubProblem;
+
+/**
+ * Checks the SpillingFrontier against a SimpleFrontier (which keeps everything in
+ * memory) with memory budgets small enough to have most subproblems spilled.
+ */
+public class SpillingFrontierTest {
+    /** Writes the (integer) states to disk */
+    private static final StateSerializer<Integer> SERIALIZER = new StateSerializer<Integer>() {
+        @Override
+        public void write(final Integer state, final DataOutput out) throws IOException {
+            out.writeInt(state);
+        }
+        @Override
+        public Integer read(final DataInput in) throws IOException {
+            return in.readInt();
+        }
+    };
+
+    /** The directory where the runs are written */
+    @Rule
+    public final TemporaryFolder folder = new TemporaryFolder();
+
+    /** The subproblems are popped in the same upper bound order as in memory */
+    @Test
+    public void spilledSubproblemsArePoppedInUpperBoundOrder() throws Exception {
+        final Random rnd = new Random(1);
+        for (int it = 0; it < 50; it++) {
+            final Frontier<Integer> spilling = newFrontier(1 + rnd.nextInt(20));
+            final Frontier<Integer> oracle   = new SimpleFrontier<>(Integer::compare);
+            final int n = rnd.nextInt(1000);
+            for (int id = 0; id < n; id++) {
+                final SubProblem<Integer> sub = sub(id, rnd.nextInt(100));
+                spilling.push(sub);
+                oracle.push(sub);
+            }
+            assertEquals(oracle.size(), spilling.size());
+
+            final Set<Integer> seen = new HashSet<>();
+            while (!oracle.isEmpty()) {
+                final SubProblem<Integer> expected = oracle.pop();
+                final SubProblem<Integer> actual   = spilling.pop();
+                assertEquals(expected.getUpperBound(), actual.getUpperBound());
+                checkContents(actual);
+                assertTrue("duplicate " + actual.getState(), seen.add(actual.getState()));
+            }
+            assertEquals(0, spilling.size());
+            assertNull(spilling.pop());
+        }
+    }
+
+    /**
+     * The pushes and pops are interleaved, so that the runs are read back while
+     * others are being written: no subproblem may be lost nor duplicated
+     */
+    @Test
+    public void pageInAndRespillLoseNothing() throws Exception {
+        final Random rnd = new Random(2);
+        for (int it = 0; it < 50; it++) {
+            final Frontier<Integer> spilling = newFrontier(1 + rnd.nextInt(20));
+            final Frontier<Integer> oracle   = new SimpleFrontier<>(Integer::compare);
+            final Set<Integer> open = new HashSet<>();
+            final int range = 1 + rnd.nextInt(it % 2 == 0 ? 10 : 10_000);
+            for (int id = 0; id < 2000; id++) {
+                if (rnd.nextInt(3) > 0) {
+                    final SubProblem<Integer> sub = sub(id, rnd.nextInt(range));
+                    spilling.push(sub);
+                    oracle.push(sub);
+                    open.add(id);
+                } else if (!oracle.isEmpty()) {
+                    final SubProblem<Integer> expected = oracle.pop();
+                    final SubProblem<Integer> actual   = spilling.pop();
+                    assertEquals(expected.getUpperBound(), actual.getUpperBound());
+                    checkContents(actual);
+                    assertTrue("lost or duplicate " + actual.getState(), open.remove(actual.getState()));
+                }
+                assertEquals(oracle.size(), spilling.size());
+            }
+            drain(spilling, oracle, open);
+        }
+    }
+
+    /** Pruning discards exactly the subproblems that cannot improve the bound, spilled or not */
+    @Test
+    public void pruneDiscardsTheSpilledSubproblems() throws Exception {
+        final Random rnd = new Random(3);
+        for (int it = 0; it < 50; it++) {
+            final Frontier<Integer> spilling = newFrontier(1 + rnd.nextInt(20));
+            final Frontier<Integer> oracle   = new SimpleFrontier<>(Integer::compare);
+            final Set<Integer> open = new HashSet<>();
+            for (int id = 0; id < 2000; id++) {
+                final int r = rnd.nextInt(10);
+                if (r < 7) {
+                    final SubProblem<Integer> sub = sub(id, rnd.nextInt(1000));
+                    spilling.push(sub);
+                    oracle.push(sub);
+                    open.add(id);
+                } else if (r < 9) {
+                    if (!oracle.isEmpty()) {
+                        final SubProblem<Integer> actual = spilling.pop();
+                        assertEquals(oracle.pop().getUpperBound(), actual.getUpperBound());
+                        assertTrue("lost or duplicate " + actual.getState(), open.remove(actual.getState()));
+                    }
+                } else {
+                    final int lb = rnd.nextInt(1000);
+                    spilling.prune(lb);
+                    oracle.prune(lb);
+                    open.removeIf(id2 -> ub(id2) <= lb);
+                }
+                assertEquals(oracle.size(), spilling.size());
+            }
+            drain(spilling, oracle, open);
+        }
+    }
+
+    /** The run files are deleted once they have been read back or cleared */
+    @Test
+    public void runFilesAreDeleted() throws Exception {
+        final Frontier<Integer> spilling = newFrontier(4);
+        for (int id = 0; id < 100; id++) {
+            spilling.push(sub(id, id % 7));
+        }
+        assertTrue(folder.getRoot().list().length > 0);
+        while (spilling.pop() != null) {
+            // drain the frontier
+        }
+        assertEquals(0, folder.getRoot().list().length);
+
+        for (int id = 0; id < 100; id++) {
+            spilling.push(sub(id, id % 7));
+        }
+        spilling.clear();
+        assertEquals(0, folder.getRoot().list().length);
+    }
+
+    /** @return a spilling frontier writing its runs in the temporary folder */
+    private Frontier<Integer> newFrontier(final int budget) {
+        return new SpillingFrontier<>(budget, SERIALIZER, folder.getRoot().toPath());
+    }
+    /** Pops all the subproblems of both frontiers and checks they agree */
+    private static void drain(final Frontier<Integer> spilling, final Frontier<Integer> oracle, final Set<Integer> open) {
+        while (!oracle.isEmpty()) {
+            final SubProblem<Integer> actual = spilling.pop();
+            assertEquals(oracle.pop().getUpperBound(), actual.getUpperBound());
+            checkContents(actual);
+            assertTrue("lost or duplicate " + actual.getState(), open.remove(actual.getState()));
+        }
+        assertTrue("lost " + open, open.isEmpty());
+        assertEquals(0, spilling.size());
+        assertNull(spilling.pop());
+    }
+
+    /**
+     * @return a subproblem whose state is the given id and whose value, upper bound
+     *   and path are derived from that id (so that they can be checked once read back)
+     */
+    private static SubProblem<Integer> sub(final int id, final int ub) {
+        UB[id] = ub;
+        return new SubProblem<>(id, value(id), ub, DecisionPath.empty().with(id, ub).with(id + 1, value(id)));
+    }
+    /** Checks that the given subproblem has survived its trip to the disk */
+    private static void checkContents(final SubProblem<Integer> sub) {
+        final int id = sub.getState();
+        assertEquals(value(id), sub.getValue());
+        assertEquals(ub(id), sub.getUpperBound());
+        assertEquals(2, sub.getPath().size());
+        assertEquals(id + 1, sub.getPath().lastVar());
+        assertEquals(value(id), sub.getPath().lastVal());
+        assertEquals(id, sub.getPath().prefix().lastVar());
+        assertEquals(ub(id), sub.getPath().prefix().lastVal());
+    }
+    /** @return the value of the subproblem having the given id */
+    private static int value(final int id) {
+        return id % 13;
+    }
+    /** @return the upper bound of the subproblem having the given id */
+    private static int ub(final int id) {
+        return UB[id];
+    }
+    /** The upper bound of the last subproblem created with each id */
+    private static final int[] UB = new int[2000];
+}
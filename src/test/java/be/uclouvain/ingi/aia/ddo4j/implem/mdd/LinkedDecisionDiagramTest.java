@@ -0,0 +1,247 @@
+package be.uclouvain.ingi.aia.ddo4j.implem.mdd;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.ForkJoinPool;
+
+import org.junit.Test;
+
+import be.uclouvain.ingi.aia.ddo4j.core.Clustering;
+import be.uclouvain.ingi.aia.ddo4j.core.CompilationInput;
+import be.uclouvain.ingi.aia.ddo4j.core.CompilationType;
+import be.uclouvain.ingi.aia.ddo4j.core.Decision;
+import be.uclouvain.ingi.aia.ddo4j.core.DecisionPath;
+import be.uclouvain.ingi.aia.ddo4j.core.DominanceChecker;
+import be.uclouvain.ingi.aia.ddo4j.core.Problem;
+import be.uclouvain.ingi.aia.ddo4j.core.Relaxation;
+import be.uclouvain.ingi.aia.ddo4j.core.SubProblem;
+import be.uclouvain.ingi.aia.ddo4j.core.TransitionConsumer;
+import be.uclouvain.ingi.aia.ddo4j.heuristics.StateRanking;
+import be.uclouvain.ingi.aia.ddo4j.implem.heuristics.DefaultVariableHeuristic;
+
+/**
+ * Checks that expanding the layers in parallel compiles exactly the same diagram
+ * as a sequential expansion: same layers, same best solution, same exact cutset
+ * and same bounds, for several widths and numbers of threads.
+ */
+public class LinkedDecisionDiagramTest {
+    /** The widths of the compiled diagrams (wide enough for the layers to be expanded in parallel) */
+    private static final int[] WIDTHS = {64, 100, 250, 1000};
+    /** The numbers of threads of the pools expanding the layers in parallel */
+    private static final int[] THREADS = {2, 3, 4};
+    /** The states are ordered by remaining capacity */
+    private static final StateRanking<Integer> RANKING = Integer::compare;
+    /** A state dominates the states at the same depth having less remaining capacity */
+    private static final DominanceChecker<Integer, Integer> DOMINANCE = new DominanceChecker<Integer, Integer>() {
+        @Override
+        public Integer dominanceKey(final Integer state) {
+            return depth(state);
+        }
+        @Override
+        public boolean dominates(final Integer a, final Integer b) {
+            return capacity(a) >= capacity(b);
+        }
+    };
+
+    @Test
+    public void parallelCompilationEqualsSequentialCompilation() {
+        final Random rnd = new Random(1);
+        final LinkedDecisionDiagram<Integer> sequential = new LinkedDecisionDiagram<>();
+        int nbWide = 0;
+        for (int nbThreads : THREADS) {
+            final ForkJoinPool pool = new ForkJoinPool(nbThreads);
+            try {
+                final LinkedDecisionDiagram<Integer> parallel = new LinkedDecisionDiagram<>(pool);
+                for (int it = 0; it < 20; it++) {
+                    final Knapsack problem = randomInstance(rnd, it % 2 == 0);
+                    final int lb = rnd.nextBoolean() ? Integer.MIN_VALUE : rnd.nextInt(100);
+                    for (int width : WIDTHS) {
+                        for (CompilationType type : CompilationType.values()) {
+                            CompilationInput<Integer> input = new CompilationInput<>(
+                                type, problem, new KnapsackRelax(problem), new DefaultVariableHeuristic<>(),
+                                RANKING, root(problem), width, lb);
+                            switch (rnd.nextInt(3)) {
+                                case 1:
+                                    input = input.withDominance(DOMINANCE);
+                                    break;
+                                case 2:
+                                    input = input.withClustering(Clustering.byRanking(1 + rnd.nextInt(4)));
+                                    break;
+                                default:
+                                    break;
+                            }
+                            sequential.compile(input);
+                            parallel.compile(input);
+
+                            final String msg = "instance " + it + ", " + type + ", width " + width
+                                + ", " + nbThreads + " threads";
+                            assertSameDiagram(msg, sequential, parallel);
+                            if (sequential.peakWidth() >= WIDTHS[0]) {
+                                nbWide += 1;
+                            }
+                        }
+                    }
+                }
+            } finally {
+                pool.shutdown();
+            }
+        }
+        // otherwise, the layers would never have been expanded in parallel
+        assertTrue(nbWide > 0);
+    }
+
+    /** Checks that both diagrams are the same ones */
+    private static void assertSameDiagram(
+        final String msg,
+        final LinkedDecisionDiagram<Integer> expected,
+        final LinkedDecisionDiagram<Integer> actual)
+    {
+        assertEquals(msg, expected.nbLayers(),    actual.nbLayers());
+        assertEquals(msg, expected.totalWidth(),  actual.totalWidth());
+        assertEquals(msg, expected.peakWidth(),   actual.peakWidth());
+        assertEquals(msg, expected.nbMerged(),    actual.nbMerged());
+        assertEquals(msg, expected.isExact(),     actual.isExact());
+        assertEquals(msg, expected.bestValue(),   actual.bestValue());
+        assertEquals(msg, expected.bestSolution().map(HashSet::new), actual.bestSolution().map(HashSet::new));
+        assertEquals(msg, cutset(expected), cutset(actual));
+    }
+    /** @return a description of each node of the exact cutset of the given diagram (in order) */
+    private static List<String> cutset(final LinkedDecisionDiagram<Integer> mdd) {
+        final List<String> cutset = new ArrayList<>();
+        final Iterator<SubProblem<Integer>> it = mdd.exactCutset();
+        while (it.hasNext()) {
+            final SubProblem<Integer> sub = it.next();
+            cutset.add(sub.getState() + " " + sub.getValue() + " " + sub.getUpperBound()
+                + " " + new HashSet<>(sub.getPath()));
+        }
+        return cutset;
+    }
+    /** @return the root subproblem of the given instance */
+    private static SubProblem<Integer> root(final Knapsack problem) {
+        return new SubProblem<>(problem.intialState(), problem.initialValue(), Integer.MAX_VALUE, DecisionPath.empty());
+    }
+    /** @return a random knapsack instance (which computes its transitions in batches or not) */
+    private static Knapsack randomInstance(final Random rnd, final boolean batched) {
+        final int n = 10 + rnd.nextInt(15);
+        final int[] weight = new int[n];
+        final int[] value  = new int[n];
+        for (int i = 0; i < n; i++) {
+            weight[i] = 1 + rnd.nextInt(50);
+            value[i]  = 1 + rnd.nextInt(50);
+        }
+        final int capacity = 100 + rnd.nextInt(500);
+        return batched ? new BatchedKnapsack(weight, value, capacity) : new Knapsack(weight, value, capacity);
+    }
+
+    /** @return a state having the given remaining capacity and depth */
+    private static int state(final int capacity, final int depth) {
+        return (capacity << 6) | depth;
+    }
+    /** @return the remaining capacity of the given state */
+    private static int capacity(final int state) {
+        return state >> 6;
+    }
+    /** @return the depth of the given state */
+    private static int depth(final int state) {
+        return state & 63;
+    }
+
+    /** A knapsack instance whose states pack the remaining capacity and the depth */
+    private static class Knapsack implements Problem<Integer> {
+        /** The weight of each item */
+        final int[] weight;
+        /** The value of each item */
+        final int[] value;
+        /** The capacity of the sack */
+        final int capacity;
+
+        Knapsack(final int[] weight, final int[] value, final int capacity) {
+            this.weight   = weight;
+            this.value    = value;
+            this.capacity = capacity;
+        }
+
+        @Override
+        public int nbVars() {
+            return weight.length;
+        }
+        @Override
+        public Integer intialState() {
+            return state(capacity, 0);
+        }
+        @Override
+        public int initialValue() {
+            return 0;
+        }
+        @Override
+        public Iterator<Integer> domain(final Integer state, final int var) {
+            return capacity(state) >= weight[var] ? Arrays.asList(1, 0).iterator() : Arrays.asList(0).iterator();
+        }
+        @Override
+        public Integer transition(final Integer state, final Decision decision) {
+            return state(capacity(state) - decision.val() * weight[decision.var()], depth(state) + 1);
+        }
+        @Override
+        public int transitionCost(final Integer state, final Decision decision) {
+            return decision.val() * value[decision.var()];
+        }
+    }
+    /** The same knapsack instance, which computes the transitions of a whole batch of states at once */
+    private static final class BatchedKnapsack extends Knapsack {
+        BatchedKnapsack(final int[] weight, final int[] value, final int capacity) {
+            super(weight, value, capacity);
+        }
+
+        @Override
+        public void transitions(final List<Integer> states, final int var, final TransitionConsumer<Integer> out) {
+            for (int i = 0; i < states.size(); i++) {
+                final int state = states.get(i);
+                if (capacity(state) >= weight[var]) {
+                    out.accept(i, 1, state(capacity(state) - weight[var], depth(state) + 1), value[var]);
+                }
+                out.accept(i, 0, state(capacity(state), depth(state) + 1), 0);
+            }
+        }
+    }
+    /** Merges the states by keeping the largest remaining capacity */
+    private static final class KnapsackRelax implements Relaxation<Integer> {
+        /** The relaxed instance */
+        private final Knapsack problem;
+
+        KnapsackRelax(final Knapsack problem) {
+            this.problem = problem;
+        }
+
+        @Override
+        public Integer mergeStates(final Iterator<Integer> states) {
+            int capacity = Integer.MIN_VALUE;
+            int depth    = 0;
+            while (states.hasNext()) {
+                final int state = states.next();
+                capacity = Math.max(capacity, capacity(state));
+                depth    = depth(state);
+            }
+            return state(capacity, depth);
+        }
+        @Override
+        public int relaxEdge(final Integer from, final Integer to, final Integer merged, final Decision d, final int cost) {
+            return cost;
+        }
+        @Override
+        public int fastUpperBound(final Integer state, final Set<Integer> variables) {
+            int total = 0;
+            for (int var : variables) {
+                total += problem.value[var];
+            }
+            return total;
+        }
+    }
+}
@@ -0,0 +1,226 @@
+package be.uclouvain.ingi.aia.ddo4j.implem.solver;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Test;
+
+import be.uclouvain.ingi.aia.ddo4j.core.Decision;
+import be.uclouvain.ingi.aia.ddo4j.core.Problem;
+import be.uclouvain.ingi.aia.ddo4j.core.Relaxation;
+import be.uclouvain.ingi.aia.ddo4j.heuristics.StateRanking;
+import be.uclouvain.ingi.aia.ddo4j.implem.frontier.SimpleFrontier;
+import be.uclouvain.ingi.aia.ddo4j.implem.heuristics.DefaultVariableHeuristic;
+import be.uclouvain.ingi.aia.ddo4j.implem.heuristics.FixedWidth;
+
+/**
+ * Solves random knapsack instances with the shared and the work stealing modes
+ * of the ParallelSolver, and checks the optimum against a dynamic programming
+ * oracle.
+ */
+public class ParallelSolverTest {
+    /** The numbers of threads of the solvers */
+    private static final int[] THREADS = {1, 2, 4};
+    /** The states are ordered by remaining capacity */
+    private static final StateRanking<Integer> RANKING = Integer::compare;
+
+    @Test
+    public void sharedModeFindsTheOptimum() {
+        final Random rnd = new Random(1);
+        for (int it = 0; it < 30; it++) {
+            final Knapsack problem = randomInstance(rnd);
+            final int width = 1 + rnd.nextInt(it % 2 == 0 ? 4 : 50);
+            for (int nbThreads : THREADS) {
+                final ParallelSolver<Integer> solver = new ParallelSolver<>(
+                    nbThreads, problem, new KnapsackRelax(problem), new DefaultVariableHeuristic<>(),
+                    RANKING, new FixedWidth<>(width), new SimpleFrontier<>(RANKING));
+                check("instance " + it + " with " + nbThreads + " threads", problem, solver);
+            }
+        }
+    }
+
+    @Test
+    public void workStealingModeFindsTheOptimum() {
+        final Random rnd = new Random(2);
+        for (int it = 0; it < 30; it++) {
+            final Knapsack problem = randomInstance(rnd);
+            final int width = 1 + rnd.nextInt(it % 2 == 0 ? 4 : 50);
+            for (int nbThreads : THREADS) {
+                final ParallelSolver<Integer> solver = new ParallelSolver<>(
+                    nbThreads, problem, new KnapsackRelax(problem), new DefaultVariableHeuristic<>(),
+                    RANKING, new FixedWidth<>(width), () -> new SimpleFrontier<>(RANKING));
+                check("instance " + it + " with " + nbThreads + " threads", problem, solver);
+            }
+        }
+    }
+
+    /**
+     * A listener which throws must not prevent the other listeners from being
+     * notified, and its failure must be reported to the uncaught exception handler
+     */
+    @Test
+    public void failingListenersAreReported() {
+        final Thread.UncaughtExceptionHandler handler = Thread.getDefaultUncaughtExceptionHandler();
+        final List<Throwable> failures = new CopyOnWriteArrayList<>();
+        Thread.setDefaultUncaughtExceptionHandler((thread, e) -> failures.add(e));
+        try {
+            final Knapsack problem = randomInstance(new Random(3));
+            final ParallelSolver<Integer> solver = new ParallelSolver<>(
+                2, problem, new KnapsackRelax(problem), new DefaultVariableHeuristic<>(),
+                RANKING, new FixedWidth<>(2), new SimpleFrontier<>(RANKING));
+            final AtomicInteger notified = new AtomicInteger(Integer.MIN_VALUE);
+            solver.addListener((value, solution, timestamp) -> {
+                throw new IllegalStateException("failing listener");
+            });
+            solver.addListener((value, solution, timestamp) -> notified.set(value));
+            solver.maximize();
+
+            assertEquals(optimum(problem), notified.get());
+            assertFalse(failures.isEmpty());
+            for (Throwable failure : failures) {
+                assertEquals("failing listener", failure.getMessage());
+            }
+        } finally {
+            Thread.setDefaultUncaughtExceptionHandler(handler);
+        }
+    }
+
+    /** Solves the given instance and checks the best solution against the oracle */
+    private static void check(final String msg, final Knapsack problem, final ParallelSolver<Integer> solver) {
+        solver.maximize();
+
+        final int expected = optimum(problem);
+        assertEquals(msg, expected, (int) solver.bestValue().get());
+        assertEquals(msg, expected, solver.upperBound());
+
+        final Set<Integer> vars = new HashSet<>();
+        int weight = 0;
+        int profit = 0;
+        for (Decision d : solver.bestSolution().get()) {
+            assertTrue(msg, vars.add(d.var()));
+            weight += d.val() * problem.weight[d.var()];
+            profit += d.val() * problem.value[d.var()];
+        }
+        assertEquals(msg, problem.nbVars(), vars.size());
+        assertEquals(msg, expected, profit);
+        assertTrue(msg, weight <= problem.capacity);
+    }
+    /** @return the optimum of the given instance (computed by dynamic programming over the capacities) */
+    private static int optimum(final Knapsack problem) {
+        final int[] best = new int[problem.capacity + 1];
+        for (int i = 0; i < problem.nbVars(); i++) {
+            for (int c = problem.capacity; c >= problem.weight[i]; c--) {
+                best[c] = Math.max(best[c], best[c - problem.weight[i]] + problem.value[i]);
+            }
+        }
+        return best[problem.capacity];
+    }
+    /** @return a random knapsack instance */
+    private static Knapsack randomInstance(final Random rnd) {
+        final int n = 5 + rnd.nextInt(20);
+        final int[] weight = new int[n];
+        final int[] value  = new int[n];
+        for (int i = 0; i < n; i++) {
+            weight[i] = 1 + rnd.nextInt(50);
+            value[i]  = 1 + rnd.nextInt(50);
+        }
+        return new Knapsack(weight, value, rnd.nextInt(500));
+    }
+
+    /** @return a state having the given remaining capacity and depth */
+    private static int state(final int capacity, final int depth) {
+        return (capacity << 6) | depth;
+    }
+    /** @return the remaining capacity of the given state */
+    private static int capacity(final int state) {
+        return state >> 6;
+    }
+    /** @return the depth of the given state */
+    private static int depth(final int state) {
+        return state & 63;
+    }
+
+    /** A knapsack instance whose states pack the remaining capacity and the depth */
+    private static final class Knapsack implements Problem<Integer> {
+        /** The weight of each item */
+        final int[] weight;
+        /** The value of each item */
+        final int[] value;
+        /** The capacity of the sack */
+        final int capacity;
+
+        Knapsack(final int[] weight, final int[] value, final int capacity) {
+            this.weight   = weight;
+            this.value    = value;
+            this.capacity = capacity;
+        }
+
+        @Override
+        public int nbVars() {
+            return weight.length;
+        }
+        @Override
+        public Integer intialState() {
+            return state(capacity, 0);
+        }
+        @Override
+        public int initialValue() {
+            return 0;
+        }
+        @Override
+        public Iterator<Integer> domain(final Integer state, final int var) {
+            return capacity(state) >= weight[var] ? Arrays.asList(1, 0).iterator() : Arrays.asList(0).iterator();
+        }
+        @Override
+        public Integer transition(final Integer state, final Decision decision) {
+            return state(capacity(state) - decision.val() * weight[decision.var()], depth(state) + 1);
+        }
+        @Override
+        public int transitionCost(final Integer state, final Decision decision) {
+            return decision.val() * value[decision.var()];
+        }
+    }
+    /** Merges the states by keeping the largest remaining capacity */
+    private static final class KnapsackRelax implements Relaxation<Integer> {
+        /** The relaxed instance */
+        private final Knapsack problem;
+
+        KnapsackRelax(final Knapsack problem) {
+            this.problem = problem;
+        }
+
+        @Override
+        public Integer mergeStates(final Iterator<Integer> states) {
+            int capacity = Integer.MIN_VALUE;
+            int depth    = 0;
+            while (states.hasNext()) {
+                final int state = states.next();
+                capacity = Math.max(capacity, capacity(state));
+                depth    = depth(state);
+            }
+            return state(capacity, depth);
+        }
+        @Override
+        public int relaxEdge(final Integer from, final Integer to, final Integer merged, final Decision d, final int cost) {
+            return cost;
+        }
+        @Override
+        public int fastUpperBound(final Integer state, final Set<Integer> variables) {
+            int total = 0;
+            for (int var : variables) {
+                total += problem.value[var];
+            }
+            return total;
+        }
+    }
+}
@@ -0,0 +1,87 @@
+package examples.knapsack;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Random;
+
+import org.junit.Test;
+
+import be.uclouvain.ingi.aia.ddo4j.core.Decision;
+import be.uclouvain.ingi.aia.ddo4j.core.Solver;
+
+/**
+ * Checks that discarding the dominated subproblems (in the diagrams and in the
+ * frontier) does not change the optimum found by the knapsack example.
+ */
+public class KnapsackTest {
+    /** The fixed instance of the example */
+    private static final int[] COST     = { 95,  4, 60, 32, 23, 72, 80, 62, 65, 46};
+    /** The benefit of each item of the fixed instance */
+    private static final int[] VALUE    = { 55, 10, 47,  5,  4, 50,  8, 61, 85, 87};
+    /** The capacity of the fixed instance */
+    private static final int   CAPACITY = 269;
+
+    @Test
+    public void dominanceKeepsTheOptimumOfTheExample() {
+        for (int nbThreads : new int[]{1, 4}) {
+            assertEquals(295, solve(COST, VALUE, CAPACITY, nbThreads, false));
+            assertEquals(295, solve(COST, VALUE, CAPACITY, nbThreads, true));
+        }
+    }
+
+    @Test
+    public void dominanceKeepsTheOptimumOfRandomInstances() {
+        final Random rnd = new Random(1);
+        for (int it = 0; it < 30; it++) {
+            final int n = 5 + rnd.nextInt(15);
+            final int[] cost  = new int[n];
+            final int[] value = new int[n];
+            int total = 0;
+            for (int i = 0; i < n; i++) {
+                cost[i]  = 1 + rnd.nextInt(50);
+                value[i] = 1 + rnd.nextInt(50);
+                total   += cost[i];
+            }
+            final int capacity = rnd.nextInt(total + 1);
+            final int expected = optimum(cost, value, capacity);
+            for (int nbThreads : new int[]{1, 4}) {
+                final String msg = "instance " + it + " with " + nbThreads + " threads";
+                assertEquals(msg, expected, solve(cost, value, capacity, nbThreads, false));
+                assertEquals(msg, expected, solve(cost, value, capacity, nbThreads, true));
+            }
+        }
+    }
+
+    /**
+     * Solves the given instance and checks that the best solution is feasible and
+     * worth the best value
+     *
+     * @return the best value found by the solver
+     */
+    private static int solve(final int[] cost, final int[] value, final int capacity, final int nbThreads, final boolean dominance) {
+        final Solver solver = Knapsack.solver(cost, value, capacity, nbThreads, dominance);
+        solver.maximize();
+
+        int weight = 0;
+        int profit = 0;
+        for (Decision d : solver.bestSolution().get()) {
+            weight += d.val() * cost[d.var()];
+            profit += d.val() * value[d.var()];
+        }
+        final int best = solver.bestValue().get();
+        assertEquals(best, profit);
+        assertTrue(weight <= capacity);
+        return best;
+    }
+    /** @return the optimum of the given instance (computed by dynamic programming over the capacities) */
+    private static int optimum(final int[] cost, final int[] value, final int capacity) {
+        final int[] best = new int[capacity + 1];
+        for (int i = 0; i < cost.length; i++) {
+            for (int c = capacity; c >= cost[i]; c--) {
+                best[c] = Math.max(best[c], best[c - cost[i]] + value[i]);
+            }
+        }
+        return best[capacity];
+    }
+}